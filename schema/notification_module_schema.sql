@@ -48,6 +48,40 @@ CREATE TABLE notifications (
     failure_reason TEXT
 );
 
+-- Sequences backing the notification entity ids. They are incremented by 50 to match the
+-- JPA allocation size, so Hibernate can assign ids in memory and batch the inserts.
+CREATE SEQUENCE IF NOT EXISTS notification_notifications_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS notification_recipients_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS notification_messages_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS notification_delivery_attempts_seq INCREMENT BY 50;
+
+-- Transactional outbox used when notification.outbox.enabled=true
+CREATE SEQUENCE IF NOT EXISTS notification_outbox_seq INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT PRIMARY KEY,
+    notification_id VARCHAR(255) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    priority INTEGER NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255),
+    locked_at TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_outbox_status_available ON notification_outbox(status, available_at);
+CREATE INDEX IF NOT EXISTS idx_outbox_status_locked ON notification_outbox(status, locked_at);
+
+-- Due-time index used to claim scheduled notifications without scanning the table.
+-- Hibernate creates it with the table; this covers tables that already exist.
+DO $$
+BEGIN
+    IF to_regclass('notification_notifications') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_notification_status_scheduled
+            ON notification_notifications(status, scheduled_time);
+    END IF;
+END $$;
+
 -- Create indexes
 CREATE INDEX idx_notifications_recipient ON notifications(recipient);
 CREATE INDEX idx_notifications_status ON notifications(status);
@@ -1,9 +1,14 @@
 package com.notification.annotation;
 
+import com.notification.config.AspectProperties;
 import com.notification.config.NotificationProperties;
 import com.notification.exception.NotificationAspectException;
+import com.notification.metrics.jfr.NotifyEvaluationEvent;
 import com.notification.service.NotificationService;
 import com.notification.service.builder.NotificationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
@@ -12,25 +17,55 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.lang.reflect.Method;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends notifications for methods annotated with {@link Notify}. Each annotated method is
+ * compiled once into a {@link NotifyPlan} holding its parsed expressions and resolved data
+ * provider, so an advised call only evaluates them.
+ * <p>
+ * Expressions and data providers are always evaluated on the calling thread, while the call's
+ * arguments, result and persistence context are still valid. With
+ * notification.aspect.async.enabled, only the resulting request is handed to worker threads
+ * through a {@link NotificationRingBuffer}, to be persisted and sent there; template data
+ * values should therefore be plain values rather than managed entities. The buffer depth is
+ * published as {@code notification.aspect.buffer.depth}, dropped calls as
+ * {@code notification.aspect.buffer.dropped} and failed ones as {@code notification.aspect.failures}.
+ * <p>
+ * Calls made inside a transaction are held back until it ends, unless
+ * notification.defer-until-commit is off: success notifications are sent once it commits and
+ * dropped if it rolls back, error notifications are sent either way. Failures at that point are
+ * logged rather than thrown, since the caller's work is already complete.
+ */
 @Aspect
 @Component
-public class NotificationAspect {
+public class NotificationAspect implements DisposableBean {
     private static final Logger logger = LoggerFactory.getLogger(NotificationAspect.class);
     private static final DateTimeFormatter UTC_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
 
     private final NotificationService notificationService;
     private final NotificationProperties properties;
@@ -38,18 +73,58 @@ public class NotificationAspect {
     private final ApplicationContext applicationContext;
     private final Map<String, NotificationDataProvider> providers;
     private final NotificationUserContext userContext;
+    private final Map<Method, NotifyPlan> plans = new ConcurrentHashMap<>();
+    private final StandardEvaluationContext contextPrototype = new StandardEvaluationContext();
+    private final TransactionTemplate transactionTemplate;
+    private final AspectProperties.OverflowPolicy overflowPolicy;
+    private final NotificationRingBuffer<PendingNotification> buffer;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Queue<Thread> idleWorkers = new ConcurrentLinkedQueue<>();
+    private final Counter dropped;
+    private final Counter failures;
+    private volatile boolean running = true;
 
     @Autowired
     public NotificationAspect(NotificationService notificationService,
                               NotificationProperties properties,
+                              AspectProperties aspectProperties,
                               ApplicationContext applicationContext,
-                              NotificationUserContext userContext) {
+                              NotificationUserContext userContext,
+                              MeterRegistry meterRegistry,
+                              PlatformTransactionManager transactionManager) {
         this.notificationService = notificationService;
         this.properties = properties;
-        this.expressionParser = new SpelExpressionParser();
+        this.expressionParser = new SpelExpressionParser(new SpelParserConfiguration(
+                aspectProperties.getSpelCompilerMode(), NotificationAspect.class.getClassLoader()));
         this.applicationContext = applicationContext;
-        this.providers = new HashMap<>();
+        this.providers = new ConcurrentHashMap<>();
         this.userContext = userContext;
+        // Initialize the prototype's lazily created delegates before calls share them
+        this.contextPrototype.applyDelegatesTo(new StandardEvaluationContext());
+        // Sends after the caller's transaction has ended must not join it
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AspectProperties.Async async = aspectProperties.getAsync();
+        this.overflowPolicy = async.getOverflowPolicy();
+        this.buffer = async.isEnabled() ? new NotificationRingBuffer<>(async.getBufferSize()) : null;
+        this.dropped = Counter.builder("notification.aspect.buffer.dropped")
+                .description("@Notify calls dropped because the hand-off buffer was full")
+                .register(meterRegistry);
+        this.failures = Counter.builder("notification.aspect.failures")
+                .description("@Notify calls whose notification could not be sent")
+                .register(meterRegistry);
+        if (buffer != null) {
+            Gauge.builder("notification.aspect.buffer.depth", buffer, NotificationRingBuffer::size)
+                    .description("@Notify calls waiting for a worker")
+                    .register(meterRegistry);
+            for (int i = 0; i < Math.max(1, async.getWorkers()); i++) {
+                Thread worker = new Thread(this::runWorker, "notification-aspect-" + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+        }
     }
 
     @AfterReturning(
@@ -59,10 +134,13 @@ public class NotificationAspect {
     public void sendSuccessNotification(JoinPoint joinPoint, Notify notify, Object result) {
         try {
             logCurrentContext("Processing success notification");
-            sendNotification(joinPoint, notify, result, null, notify.successTemplate());
+            dispatch(joinPoint, notify, result, null, notify.successTemplate());
         } catch (Exception e) {
             logError("Failed to send success notification", e);
-            throw new NotificationAspectException("Failed to send success notification", e);
+            failures.increment();
+            if (buffer == null) {
+                throw new NotificationAspectException("Failed to send success notification", e);
+            }
         }
     }
 
@@ -73,18 +151,25 @@ public class NotificationAspect {
     public void sendErrorNotification(JoinPoint joinPoint, Notify notify, Exception ex) {
         try {
             logCurrentContext("Processing error notification");
-            sendNotification(joinPoint, notify, null, ex, notify.errorTemplate());
+            dispatch(joinPoint, notify, null, ex, notify.errorTemplate());
         } catch (Exception e) {
             logError("Failed to send error notification", e);
-            throw new NotificationAspectException("Failed to send error notification", e);
+            failures.increment();
+            if (buffer == null) {
+                throw new NotificationAspectException("Failed to send error notification", e);
+            }
         }
     }
 
-    private void sendNotification(JoinPoint joinPoint,
-                                  Notify notify,
-                                  Object result,
-                                  Exception error,
-                                  String templateName) {
+    /**
+     * Evaluates the notification on the calling thread and sends it directly or hands it to
+     * the workers.
+     */
+    private void dispatch(JoinPoint joinPoint,
+                          Notify notify,
+                          Object result,
+                          Exception error,
+                          String templateName) {
         // Validate template
         if (templateName.isEmpty()) {
             throw new NotificationAspectException("Template name is required for @Notify annotation");
@@ -92,16 +177,111 @@ public class NotificationAspect {
 
         // Get method details
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        Method method = signature.getMethod();
+        NotifyPlan plan = plans.computeIfAbsent(signature.getMethod(), key -> compile(key, signature, notify));
+        NotificationInvocation invocation = new NotificationInvocation(plan, notify, joinPoint.getArgs(), result,
+                error, templateName, userContext.getCurrentUser(), userContext.getCurrentTimestamp());
+        PendingNotification pending = evaluate(invocation);
+        if (pending == null) {
+            return;
+        }
+
+        if (properties.isDeferUntilCommit() && TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED || error != null) {
+                        handOffAfterTransaction(pending);
+                    } else {
+                        logger.debug("Dropping notification from method {}: transaction rolled back",
+                                pending.methodName());
+                    }
+                }
+            });
+        } else {
+            handOff(pending, false);
+        }
+    }
+
+    private void handOffAfterTransaction(PendingNotification pending) {
+        try {
+            handOff(pending, true);
+        } catch (Exception e) {
+            failures.increment();
+            logError("Failed to send notification from method " + pending.methodName(), e);
+        }
+    }
+
+    private void handOff(PendingNotification pending, boolean afterTransaction) {
+        if (buffer != null && buffer.offer(pending)) {
+            Thread idle = idleWorkers.poll();
+            if (idle != null) {
+                LockSupport.unpark(idle);
+            }
+            return;
+        }
+        if (buffer != null && overflowPolicy == AspectProperties.OverflowPolicy.DROP) {
+            dropped.increment();
+            logger.warn("Notification hand-off buffer is full, dropping notification from method: {}",
+                    pending.methodName());
+        } else if (afterTransaction) {
+            transactionTemplate.executeWithoutResult(status -> send(pending));
+        } else {
+            send(pending);
+        }
+    }
+
+    private void runWorker() {
+        Thread self = Thread.currentThread();
+        while (running || buffer.size() > 0) {
+            PendingNotification pending = buffer.poll();
+            if (pending == null) {
+                // Announce before checking again, so an offer in between always unparks a worker
+                idleWorkers.add(self);
+                pending = buffer.poll();
+                if (pending == null) {
+                    if (running) {
+                        LockSupport.park(this);
+                    }
+                    idleWorkers.remove(self);
+                    continue;
+                }
+                idleWorkers.remove(self);
+            }
+            try {
+                send(pending);
+            } catch (Exception e) {
+                failures.increment();
+                logError("Failed to send notification from method " + pending.methodName(), e);
+            }
+        }
+    }
+
+    private void send(PendingNotification pending) {
+        String notificationId = notificationService.sendNotification(pending.request());
+        logNotificationSent(pending.templateName(), notificationId, pending.recipientCount());
+    }
+
+    /**
+     * Evaluates the recipients and template data of a call and builds its request.
+     *
+     * @return the notification to send, or null if there is nothing to send
+     */
+    private PendingNotification evaluate(NotificationInvocation invocation) {
+        NotifyEvaluationEvent event = new NotifyEvaluationEvent();
+        event.begin();
+        NotifyPlan plan = invocation.plan();
+        Object result = invocation.result();
+        Exception error = invocation.error();
+        String templateName = invocation.templateName();
 
         List<String> recipients;
         Map<String, Object> templateData;
 
-        if (!notify.name().isEmpty()) {
+        if (plan.provider() != null) {
             // Use provider
-            NotificationDataProvider provider = getProvider(notify.name());
-            recipients = provider.getRecipients(result, joinPoint.getArgs());
-            templateData = provider.getTemplateData(result, joinPoint.getArgs());
+            NotificationDataProvider provider = plan.provider();
+            recipients = provider.getRecipients(result, invocation.args());
+            templateData = provider.getTemplateData(result, invocation.args());
 
             // Add error information if available
             if (error != null) {
@@ -110,35 +290,83 @@ public class NotificationAspect {
                 templateData.put("errorType", error.getClass().getSimpleName());
             }
 
-            addCommonTemplateData(templateData);
+            addCommonTemplateData(templateData, invocation);
         } else {
             // Use SpEL expressions
-            EvaluationContext context = createEvaluationContext(joinPoint, result, error);
+            EvaluationContext context = createEvaluationContext(invocation);
 
             // Check condition if specified
-            if (!notify.condition().isEmpty()) {
-                Expression condition = expressionParser.parseExpression(notify.condition());
-                Boolean shouldNotify = condition.getValue(context, Boolean.class);
+            if (plan.condition() != null) {
+                Boolean shouldNotify = plan.condition().getValue(context, Boolean.class);
                 if (shouldNotify == null || !shouldNotify) {
-                    logCurrentContext("Notification condition not met for method: " + method.getName());
-                    return;
+                    logCurrentContext("Notification condition not met for method: " + plan.methodName());
+                    commit(event, invocation, 0);
+                    return null;
                 }
             }
 
-            recipients = evaluateRecipients(notify.recipients(), context);
-            templateData = evaluateTemplateData(notify.templateData(), context);
+            recipients = evaluateRecipients(plan.recipients(), context);
+            templateData = evaluateTemplateData(plan.templateData(), context, invocation);
         }
 
         if (recipients.isEmpty()) {
-            logCurrentContext("No recipients found for notification from method: " + method.getName());
-            return;
+            logCurrentContext("No recipients found for notification from method: " + plan.methodName());
+            commit(event, invocation, 0);
+            return null;
+        }
+
+        NotificationRequest request = buildNotificationRequest(invocation.annotation(), recipients, templateData, templateName);
+        commit(event, invocation, recipients.size());
+        return new PendingNotification(plan.methodName(), templateName, request, recipients.size());
+    }
+
+    private static void commit(NotifyEvaluationEvent event, NotificationInvocation invocation, int recipientCount) {
+        if (event.shouldCommit()) {
+            event.method = invocation.plan().methodName();
+            event.template = invocation.templateName();
+            event.recipientCount = recipientCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Parses a method's @Notify expressions and resolves its data provider. Template data is
+     * given as comma-separated key=expression pairs; pairs without exactly one '=' are ignored.
+     */
+    private NotifyPlan compile(Method method, MethodSignature signature, Notify notify) {
+        if (!notify.name().isEmpty()) {
+            return new NotifyPlan(signature.getParameterNames(), method.getName(), getProvider(notify.name()),
+                    null, null, List.of());
         }
 
-        // Build and send notification
-        NotificationRequest request = buildNotificationRequest(notify, recipients, templateData, templateName);
-        String notificationId = notificationService.sendNotification(request);
+        Expression condition = notify.condition().isEmpty() ? null : expressionParser.parseExpression(notify.condition());
+
+        Expression recipients;
+        try {
+            recipients = notify.recipients().isEmpty() ? null : expressionParser.parseExpression(notify.recipients());
+        } catch (Exception e) {
+            logError("Failed to evaluate recipients expression", e);
+            throw new NotificationAspectException("Failed to evaluate recipients", e);
+        }
+
+        List<TemplateDataEntry> templateData = new ArrayList<>();
+        if (!notify.templateData().isEmpty()) {
+            try {
+                for (String pair : notify.templateData().split(",")) {
+                    String[] keyValue = pair.trim().split("=");
+                    if (keyValue.length == 2) {
+                        templateData.add(new TemplateDataEntry(keyValue[0].trim(),
+                                expressionParser.parseExpression(keyValue[1].trim())));
+                    }
+                }
+            } catch (Exception e) {
+                logError("Failed to evaluate template data", e);
+                throw new NotificationAspectException("Failed to evaluate template data", e);
+            }
+        }
 
-        logNotificationSent(templateName, notificationId, recipients.size());
+        return new NotifyPlan(signature.getParameterNames(), method.getName(), null,
+                condition, recipients, List.copyOf(templateData));
     }
 
     private NotificationDataProvider getProvider(String name) {
@@ -154,21 +382,23 @@ public class NotificationAspect {
         });
     }
 
-    private void addCommonTemplateData(Map<String, Object> templateData) {
-        templateData.put("timestamp", userContext.getCurrentTimestamp());
-        templateData.put("currentUser", userContext.getCurrentUser());
+    private void addCommonTemplateData(Map<String, Object> templateData, NotificationInvocation invocation) {
+        templateData.put("timestamp", invocation.timestamp());
+        templateData.put("currentUser", invocation.currentUser());
     }
 
-    private EvaluationContext createEvaluationContext(JoinPoint joinPoint,
-                                                      Object result,
-                                                      Exception error) {
+    private EvaluationContext createEvaluationContext(NotificationInvocation invocation) {
+        NotifyPlan plan = invocation.plan();
+        Object[] args = invocation.args();
+        Object result = invocation.result();
+        Exception error = invocation.error();
+
+        // Share the prototype's resolvers and accessors, along with what they have cached
         StandardEvaluationContext context = new StandardEvaluationContext();
+        contextPrototype.applyDelegatesTo(context);
 
         // Add method parameters to context
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String[] paramNames = signature.getParameterNames();
-        Object[] args = joinPoint.getArgs();
-
+        String[] paramNames = plan.parameterNames();
         for (int i = 0; i < paramNames.length; i++) {
             context.setVariable(paramNames[i], args[i]);
         }
@@ -184,21 +414,20 @@ public class NotificationAspect {
         }
 
         // Add common variables
-        context.setVariable("currentUser", userContext.getCurrentUser());
-        context.setVariable("timestamp", userContext.getCurrentTimestamp());
-        context.setVariable("method", signature.getMethod().getName());
+        context.setVariable("currentUser", invocation.currentUser());
+        context.setVariable("timestamp", invocation.timestamp());
+        context.setVariable("method", plan.methodName());
 
         return context;
     }
 
-    private List<String> evaluateRecipients(String recipientsExpression,
+    private List<String> evaluateRecipients(Expression expression,
                                             EvaluationContext context) {
-        if (recipientsExpression.isEmpty()) {
+        if (expression == null) {
             return Collections.emptyList();
         }
 
         try {
-            Expression expression = expressionParser.parseExpression(recipientsExpression);
             Object value = expression.getValue(context);
 
             if (value instanceof String) {
@@ -219,32 +448,36 @@ public class NotificationAspect {
         }
     }
 
-    private Map<String, Object> evaluateTemplateData(String templateDataExpression,
-                                                     EvaluationContext context) {
+    private Map<String, Object> evaluateTemplateData(List<TemplateDataEntry> entries,
+                                                     EvaluationContext context,
+                                                     NotificationInvocation invocation) {
         Map<String, Object> templateData = new HashMap<>();
-        addCommonTemplateData(templateData);
+        addCommonTemplateData(templateData, invocation);
 
-        if (!templateDataExpression.isEmpty()) {
-            try {
-                String[] pairs = templateDataExpression.split(",");
-                for (String pair : pairs) {
-                    String[] keyValue = pair.trim().split("=");
-                    if (keyValue.length == 2) {
-                        String key = keyValue[0].trim();
-                        Expression valueExpr = expressionParser.parseExpression(keyValue[1].trim());
-                        Object value = valueExpr.getValue(context);
-                        templateData.put(key, value);
-                    }
-                }
-            } catch (Exception e) {
-                logError("Failed to evaluate template data", e);
-                throw new NotificationAspectException("Failed to evaluate template data", e);
+        try {
+            for (TemplateDataEntry entry : entries) {
+                templateData.put(entry.key(), entry.value().getValue(context));
             }
+        } catch (Exception e) {
+            logError("Failed to evaluate template data", e);
+            throw new NotificationAspectException("Failed to evaluate template data", e);
         }
 
         return templateData;
     }
 
+    /**
+     * Stops the workers once they have sent what is left in the buffer.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        workers.forEach(LockSupport::unpark);
+        for (Thread worker : workers) {
+            worker.join(SHUTDOWN_TIMEOUT_MS);
+        }
+    }
+
     private NotificationRequest buildNotificationRequest(Notify notify,
                                                          List<String> recipients,
                                                          Map<String, Object> templateData,
@@ -289,4 +522,45 @@ public class NotificationAspect {
                 notificationId,
                 recipientCount);
     }
-}
\ No newline at end of file
+
+    /**
+     * Everything about a @Notify method that does not change between calls.
+     *
+     * @param provider     The data provider, or null if the method uses expressions
+     * @param condition    The condition, or null if there is none
+     * @param recipients   The recipients expression, or null if there is none
+     * @param templateData The template data entries, in declaration order
+     */
+    private record NotifyPlan(String[] parameterNames,
+                              String methodName,
+                              NotificationDataProvider provider,
+                              Expression condition,
+                              Expression recipients,
+                              List<TemplateDataEntry> templateData) {
+    }
+
+    private record TemplateDataEntry(String key, Expression value) {
+    }
+
+    /**
+     * One advised call. Only used on the calling thread.
+     */
+    private record NotificationInvocation(NotifyPlan plan,
+                                          Notify annotation,
+                                          Object[] args,
+                                          Object result,
+                                          Exception error,
+                                          String templateName,
+                                          String currentUser,
+                                          LocalDateTime timestamp) {
+    }
+
+    /**
+     * A fully evaluated notification, ready to be sent from any thread.
+     */
+    private record PendingNotification(String methodName,
+                                       String templateName,
+                                       NotificationRequest request,
+                                       int recipientCount) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.notification.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.expression.spel.SpelCompilerMode;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the @Notify aspect.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "notification.aspect")
+@Data
+public class AspectProperties {
+
+    /**
+     * How @Notify expressions are compiled to bytecode. MIXED compiles an expression once it
+     * has been evaluated and falls back to interpretation if compiled code fails; IMMEDIATE
+     * compiles right away; OFF always interprets.
+     */
+    private SpelCompilerMode spelCompilerMode = SpelCompilerMode.MIXED;
+
+    /**
+     * Hand-off of @Notify work to background workers.
+     */
+    private Async async = new Async();
+
+    @Data
+    public static class Async {
+
+        /**
+         * Whether advised methods only capture their inputs and leave expression evaluation and
+         * sending to background workers. Failures are then logged instead of failing the call.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of captured calls that may wait for a worker, rounded up to a power of two.
+         */
+        private int bufferSize = 1024;
+
+        /**
+         * Number of worker threads.
+         */
+        private int workers = 2;
+
+        /**
+         * What happens to a call when the buffer is full.
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Drop the notification and count it in notification.aspect.buffer.dropped.
+         */
+        DROP,
+
+        /**
+         * Send the notification on the calling thread.
+         */
+        CALLER_RUNS
+    }
+}
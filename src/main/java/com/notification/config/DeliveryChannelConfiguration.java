@@ -1,10 +1,15 @@
 package com.notification.config;
 
 import com.notification.service.NotificationMessageResolver;
+import com.notification.service.delivery.email.AttachmentCache;
 import com.notification.service.delivery.email.EmailDeliveryService;
+import com.notification.service.delivery.email.EmailDomainDispatcher;
+import com.notification.service.delivery.sms.AsyncSmsSender;
 import com.notification.service.delivery.sms.SmsDeliveryService;
 import com.notification.service.delivery.sms.SmsSender;
 import com.notification.service.delivery.web.WebDeliveryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -32,16 +37,20 @@ public class DeliveryChannelConfiguration {
 
     /**
      * SMS delivery service that will only be created if SMS is enabled.
-     * If SMS is enabled but no SmsDeliveryProvider is provided, a compile-time error will occur.
+     * If SMS is enabled, an AsyncSmsSender or an SmsSender must be provided.
      */
     @Bean
     @ConditionalOnProperty(prefix = "notification.sms", name = "enabled", havingValue = "true")
-    public SmsDeliveryService smsDeliveryService(SmsSender smsDeliveryProvider,
-                                                 SmsProperties properties) {
-        if (!smsDeliveryProvider.isConfigured()) {
+    public SmsDeliveryService smsDeliveryService(ObjectProvider<SmsSender> smsDeliveryProvider,
+                                                 ObjectProvider<AsyncSmsSender> asyncSmsDeliveryProvider,
+                                                 SmsProperties properties,
+                                                 MeterRegistry meterRegistry) {
+        SmsDeliveryService smsDeliveryService = new SmsDeliveryService(smsDeliveryProvider.getIfAvailable(),
+                asyncSmsDeliveryProvider.getIfAvailable(), properties, notificationMessageResolver, meterRegistry);
+        if (!smsDeliveryService.isSupported()) {
             throw new IllegalStateException("SMS is enabled but the SmsDeliveryProvider is not properly configured");
         }
-        return new SmsDeliveryService(smsDeliveryProvider, properties,notificationMessageResolver);
+        return smsDeliveryService;
     }
 
     /**
@@ -50,8 +59,10 @@ public class DeliveryChannelConfiguration {
      */
     @Bean
     @ConditionalOnProperty(prefix = "notification.email", name = "enabled", havingValue = "true")
-    public EmailDeliveryService emailDeliveryService(EmailProperties properties) {
-        return new EmailDeliveryService(javaMailSender, properties,notificationMessageResolver);
+    public EmailDeliveryService emailDeliveryService(EmailProperties properties, EmailDomainDispatcher emailDomainDispatcher,
+                                                     AttachmentCache attachmentCache) {
+        return new EmailDeliveryService(javaMailSender, properties,notificationMessageResolver, emailDomainDispatcher,
+                attachmentCache);
     }
 
     /**
@@ -0,0 +1,124 @@
+package com.notification.config;
+
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationPriority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for the executors that run notification delivery.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "notification.executor")
+@Data
+public class DeliveryExecutorProperties {
+
+    /**
+     * Whether to run tasks on virtual threads. Requires Java 21; platform thread pools are used otherwise.
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Pool that processes notifications handed off asynchronously by NotificationService.
+     */
+    private Pool dispatch = new Pool();
+
+    /**
+     * Pool settings for channels without an entry in channels.
+     */
+    private Pool defaults = new Pool();
+
+    /**
+     * Per-channel pool settings, so slow channels cannot starve the others.
+     */
+    private Map<NotificationChannel, Pool> channels = new HashMap<>();
+
+    /**
+     * Longest time, in milliseconds, a queued task of each priority should wait. Queued tasks
+     * run in order of enqueue time plus this value, so higher priorities overtake lower ones
+     * while a task that has waited long enough is never overtaken again.
+     */
+    private Map<NotificationPriority, Long> priorityMaxWaitMs = defaultPriorityMaxWait();
+
+    /**
+     * Returns the pool settings for a channel.
+     *
+     * @param channel The delivery channel
+     * @return the channel's pool settings, or the defaults
+     */
+    public Pool getPool(NotificationChannel channel) {
+        return channels.getOrDefault(channel, defaults);
+    }
+
+    /**
+     * Returns the longest time a queued task of a priority should wait.
+     *
+     * @param priority The notification priority, or null for NORMAL
+     * @return the maximum wait in milliseconds
+     */
+    public long getMaxWaitMs(NotificationPriority priority) {
+        Long maxWait = priorityMaxWaitMs.get(priority != null ? priority : NotificationPriority.NORMAL);
+        return maxWait != null ? maxWait : 0;
+    }
+
+    private static Map<NotificationPriority, Long> defaultPriorityMaxWait() {
+        Map<NotificationPriority, Long> maxWait = new EnumMap<>(NotificationPriority.class);
+        maxWait.put(NotificationPriority.URGENT, 0L);
+        maxWait.put(NotificationPriority.HIGH, 1_000L);
+        maxWait.put(NotificationPriority.NORMAL, 5_000L);
+        maxWait.put(NotificationPriority.LOW, 30_000L);
+        return maxWait;
+    }
+
+    @Data
+    public static class Pool {
+
+        /**
+         * Number of threads kept alive while idle.
+         */
+        private int corePoolSize = 4;
+
+        /**
+         * Maximum number of concurrently running tasks.
+         */
+        private int maxPoolSize = 16;
+
+        /**
+         * Maximum number of tasks waiting for a thread.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Seconds an idle thread above the core size is kept alive.
+         */
+        private int keepAliveSeconds = 60;
+
+        /**
+         * What to do with a task when both the threads and the queue are exhausted.
+         */
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+    }
+
+    public enum RejectionPolicy {
+        /**
+         * Run the task on the submitting thread, slowing the producer down.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Fail the submission with a RejectedExecutionException.
+         */
+        ABORT,
+
+        /**
+         * Drop the task silently.
+         */
+        DISCARD
+    }
+}
@@ -5,6 +5,9 @@ import org.springframework.context.annotation.Configuration;
 
 import lombok.Data;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Configuration properties for email delivery.
  */
@@ -54,14 +57,132 @@ public class EmailProperties {
      * Whether to use TLS for SMTP.
      */
     private boolean smtpTls = false;
+
+    /**
+     * Whether to keep SMTP connections open and reuse them across messages.
+     */
+    private boolean smtpPoolEnabled = true;
+
+    /**
+     * Maximum number of pooled SMTP connections.
+     */
+    private int smtpPoolSize = 4;
+
+    /**
+     * Seconds a pooled SMTP connection may stay idle before it is closed.
+     */
+    private int smtpPoolIdleTimeoutSeconds = 30;
+
+    /**
+     * Milliseconds to wait for a pooled SMTP connection when all are in use.
+     */
+    private long smtpPoolBorrowTimeoutMs = 30000;
+
+    /**
+     * Maximum number of messages sent over one SMTP connection before it is replaced.
+     */
+    private int smtpMaxMessagesPerConnection = 100;
+
+    /**
+     * Whether recipients of a batch receiving identical emails share one message with many
+     * envelope recipients. The To header reads "undisclosed-recipients" and addresses are only
+     * sent in the SMTP envelope, so recipients do not see each other.
+     */
+    private boolean multiRecipientEnabled = false;
+
+    /**
+     * Maximum number of envelope recipients per shared message. Keep this within the relay's
+     * RCPT TO limit (commonly 50 to 100).
+     */
+    private int maxRecipientsPerMessage = 50;
+
+    /**
+     * Whether batches are split by recipient domain and each domain is sent separately,
+     * within its own concurrency and rate limits.
+     */
+    private boolean domainBatchingEnabled = true;
+
+    /**
+     * Number of threads sending domain batches in parallel.
+     */
+    private int domainThreads = 8;
+
+    /**
+     * Longest a domain batch may wait for a connection slot or rate permits before its
+     * remaining messages are failed and left to the retry schedule.
+     */
+    private long domainMaxWaitMs = 10_000;
+
+    /**
+     * Maximum number of domains whose limits are tracked at once.
+     */
+    private long maxTrackedDomains = 10_000;
+
+    /**
+     * Limits applied to every domain without an entry in domains.
+     */
+    private DomainLimit domainDefaults = new DomainLimit();
+
+    /**
+     * Per-domain limits, keyed by lower-case domain (e.g. gmail.com).
+     */
+    private Map<String, DomainLimit> domains = new HashMap<>();
     
     /**
      * Maximum size for email attachments in MB.
      */
     private int maxAttachmentSizeMb = 10;
+
+    /**
+     * Maximum total size, in MB of base64-encoded content, of the attachments kept ready to send.
+     */
+    private int attachmentCacheMaxMb = 128;
+
+    /**
+     * Encoded attachments larger than this are kept in memory-mapped temporary files
+     * instead of on the heap.
+     */
+    private int attachmentSpoolThresholdKb = 256;
     
     /**
      * Whether to enable HTML in email by default.
      */
     private boolean htmlEnabledByDefault = true;
+
+    /**
+     * Returns the limits for a recipient domain.
+     *
+     * @param domain The lower-case domain
+     * @return the domain's limits, or the defaults
+     */
+    public DomainLimit getDomainLimit(String domain) {
+        return domains.getOrDefault(domain, domainDefaults);
+    }
+
+    @Data
+    public static class DomainLimit {
+
+        /**
+         * Maximum number of connections sending to the domain at once.
+         */
+        private int maxConcurrency = 2;
+
+        /**
+         * Messages per second sent to the domain. Zero disables the limit.
+         */
+        private double ratePerSecond = 0;
+
+        /**
+         * Messages allowed at once after an idle period. Zero uses the per-second rate.
+         */
+        private int burst = 0;
+
+        public boolean isRateLimited() {
+            return ratePerSecond > 0;
+        }
+
+        public int getEffectiveBurst() {
+            return burst > 0 ? burst : (int) Math.max(1, Math.ceil(ratePerSecond));
+        }
+    }
 } 
\ No newline at end of file
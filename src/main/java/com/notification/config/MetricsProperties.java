@@ -0,0 +1,34 @@
+package com.notification.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for notification metrics.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "notification.metrics")
+@Data
+public class MetricsProperties {
+
+    /**
+     * Histogram buckets published for every stage timer, e.g. to alert on the share of
+     * deliveries slower than one second.
+     */
+    private List<Duration> slo = new ArrayList<>(List.of(
+            Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(5),
+            Duration.ofSeconds(10)));
+
+    /**
+     * Whether stage timers also publish the full percentile histogram. This adds many buckets
+     * per series, on top of the SLO buckets.
+     */
+    private boolean percentileHistogram = false;
+}
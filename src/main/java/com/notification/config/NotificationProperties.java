@@ -43,6 +43,25 @@ public class NotificationProperties {
      */
     private int maxNotificationsPerSecond = 50;
 
+    /**
+     * Number of rows Hibernate groups into one JDBC batch when persisting notifications.
+     * Ignored if hibernate.jdbc.batch_size is already configured by the application.
+     */
+    private int jdbcBatchSize = 50;
+
+    /**
+     * Whether notifications sent directly from inside a transaction wait for it to commit,
+     * and are dropped if it rolls back. Queued and outbox notifications always follow the
+     * transaction they are created in.
+     */
+    private boolean deferUntilCommit = true;
+
+    /**
+     * Seconds a notification may stay in PROCESSING before another worker may deliver it
+     * again, e.g. after the node delivering it was restarted.
+     */
+    private int processingTimeoutSeconds = 300;
+
 
 
 }
\ No newline at end of file
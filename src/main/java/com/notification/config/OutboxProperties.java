@@ -0,0 +1,50 @@
+package com.notification.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the transactional notification outbox.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "notification.outbox")
+@Data
+public class OutboxProperties {
+
+    /**
+     * Whether notifications are handed off through the outbox table instead of in-memory async processing.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of worker threads polling and dispatching outbox entries on this node.
+     */
+    private int workers = 2;
+
+    /**
+     * Maximum number of entries a worker claims per poll.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Delay in milliseconds before a worker polls again after finding no work.
+     */
+    private long pollIntervalMs = 500;
+
+    /**
+     * Seconds after which an entry claimed by a node that stopped responding is released again.
+     */
+    private int leaseTimeoutSeconds = 300;
+
+    /**
+     * Maximum number of dispatch attempts before an entry is marked as failed.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Base delay in seconds before a failed entry is retried. Multiplied by the attempt count.
+     */
+    private int retryDelaySeconds = 30;
+}
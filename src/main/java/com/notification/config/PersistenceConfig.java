@@ -0,0 +1,31 @@
+package com.notification.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Configuration for persisting notifications.
+ * Notification entities use pooled sequences, so Hibernate can group the inserts of a
+ * notification, its recipients, messages and delivery attempts into JDBC batches.
+ */
+@AutoConfiguration
+public class PersistenceConfig {
+
+    /**
+     * Enables JDBC batching and insert ordering unless the application configured them itself.
+     *
+     * @param properties The notification properties
+     * @return The Hibernate properties customizer
+     */
+    @Bean
+    public HibernatePropertiesCustomizer notificationBatchingCustomizer(NotificationProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, properties.getJdbcBatchSize());
+            hibernateProperties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            hibernateProperties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            hibernateProperties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+}
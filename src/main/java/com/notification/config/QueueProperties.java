@@ -3,8 +3,13 @@ package com.notification.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import com.notification.domain.notification.NotificationChannel;
+
 import lombok.Data;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Configuration properties for notification queue.
  */
@@ -24,12 +29,12 @@ public class QueueProperties {
     private String exchange = "notification.exchange";
     
     /**
-     * The routing key pattern.
+     * The routing key prefix. Messages for a channel are routed with {@code <prefix>.<channel>}.
      */
-    private String routingKey = "notification.#";
+    private String routingKey = "notification";
     
     /**
-     * The queue name.
+     * The queue name prefix. Each channel consumes from its own {@code <prefix>.<channel>} queue.
      */
     private String queueName = "notification.queue";
     
@@ -37,4 +42,70 @@ public class QueueProperties {
      * Whether to persist messages.
      */
     private boolean durable = true;
-} 
\ No newline at end of file
+
+    /**
+     * Whether channel queues are declared as priority queues, so URGENT messages are delivered
+     * ahead of queued LOW ones. Existing queues must be deleted before this can be changed.
+     */
+    private boolean priorityQueues = true;
+
+    /**
+     * Consumer settings for channels without an entry in channels.
+     */
+    private Consumer defaults = new Consumer();
+
+    /**
+     * Per-channel consumer settings.
+     */
+    private Map<NotificationChannel, Consumer> channels = new HashMap<>();
+
+    /**
+     * Returns the consumer settings for a channel.
+     *
+     * @param channel The delivery channel
+     * @return the channel's consumer settings, or the defaults
+     */
+    public Consumer getConsumer(NotificationChannel channel) {
+        return channels.getOrDefault(channel, defaults);
+    }
+
+    /**
+     * @param channel The delivery channel
+     * @return the name of the queue holding the channel's messages
+     */
+    public String getQueueName(NotificationChannel channel) {
+        return queueName + "." + channel.name().toLowerCase();
+    }
+
+    /**
+     * @param channel The delivery channel
+     * @return the routing key of the channel's messages
+     */
+    public String getRoutingKey(NotificationChannel channel) {
+        return routingKey + "." + channel.name().toLowerCase();
+    }
+
+    @Data
+    public static class Consumer {
+
+        /**
+         * Number of consumers started for the channel's queue.
+         */
+        private int concurrentConsumers = 1;
+
+        /**
+         * Number of consumers the container may scale up to under load.
+         */
+        private int maxConcurrentConsumers = 4;
+
+        /**
+         * Unacknowledged messages each consumer may hold.
+         */
+        private int prefetch = 10;
+
+        /**
+         * Messages handed to the listener at once. Values above 1 enable batch consumption.
+         */
+        private int batchSize = 1;
+    }
+}
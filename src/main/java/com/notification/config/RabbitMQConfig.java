@@ -1,8 +1,10 @@
 package com.notification.config;
 
-import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -12,6 +14,12 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationPriority;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration for RabbitMQ messaging.
  */
@@ -21,16 +29,6 @@ public class RabbitMQConfig {
     @Autowired
     QueueProperties queueProperties;
 
-    /**
-     * Creates the notification queue.
-     *
-     * @return The queue
-     */
-    @Bean
-    public Queue notificationQueue() {
-        return new Queue(queueProperties.getQueueName(), true);
-    }
-
     /**
      * Creates the notification exchange.
      *
@@ -42,15 +40,28 @@ public class RabbitMQConfig {
     }
 
     /**
-     * Binds the queue to the exchange.
+     * Creates one queue per channel and binds it to the exchange with the channel's routing key,
+     * so a slow channel only backs up its own queue. Queues take one priority level per
+     * NotificationPriority unless priority queues are disabled.
      *
-     * @param queue    The queue
      * @param exchange The exchange
-     * @return The binding
+     * @return The queues and bindings
      */
     @Bean
-    public Binding binding(Queue queue, TopicExchange exchange) {
-        return BindingBuilder.bind(queue).to(exchange).with(queueProperties.getRoutingKey());
+    public Declarables notificationChannelQueues(TopicExchange exchange) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            QueueBuilder builder = queueProperties.isDurable() ?
+                    QueueBuilder.durable(queueProperties.getQueueName(channel)) :
+                    QueueBuilder.nonDurable(queueProperties.getQueueName(channel));
+            if (queueProperties.isPriorityQueues()) {
+                builder.maxPriority(NotificationPriority.values().length - 1);
+            }
+            Queue queue = builder.build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange).with(queueProperties.getRoutingKey(channel)));
+        }
+        return new Declarables(declarables);
     }
 
     /**
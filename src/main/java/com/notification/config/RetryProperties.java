@@ -52,4 +52,14 @@ public class RetryProperties {
      * Whether to add jitter to retry delays.
      */
     private boolean addJitter = true;
+
+    /**
+     * Maximum number of due retries claimed per poll.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Seconds after which a retry claimed by a node that did not finish it becomes due again.
+     */
+    private int leaseTimeoutSeconds = 300;
 } 
\ No newline at end of file
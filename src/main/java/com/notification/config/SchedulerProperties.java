@@ -15,5 +15,39 @@ public class SchedulerProperties {
 
     private boolean enabled = false;
 
+    /**
+     * Interval, in milliseconds, between polls for scheduled notifications coming due.
+     */
     private int scheduledNotificationsInterval = 6000;
+
+    /**
+     * Interval, in milliseconds, between polls for failed deliveries whose retry is due.
+     */
+    private int retryNotificationsInterval = 30000;
+
+    /**
+     * How far ahead, in seconds, due notifications are claimed from the database and held in memory.
+     */
+    private int horizonSeconds = 120;
+
+    /**
+     * Maximum number of scheduled notifications claimed per query.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Seconds after which notifications claimed by a node that did not fire them are claimable again.
+     * Must be longer than the horizon.
+     */
+    private int leaseTimeoutSeconds = 600;
+
+    /**
+     * Resolution, in milliseconds, of the in-memory timing wheel.
+     */
+    private int tickMs = 100;
+
+    /**
+     * Number of slots per timing wheel level.
+     */
+    private int wheelSize = 512;
 }
@@ -29,4 +29,40 @@ public class SmsProperties {
      */
     private boolean splitLongMessages = false;
 
+    /**
+     * Maximum number of segments a long message is sent as when splitLongMessages is set.
+     * Longer messages are cut at a segment boundary.
+     */
+    private int maxSegments = 10;
+
+    /**
+     * Maximum number of messages handed to the gateway in one bulk submission.
+     */
+    private int bulkBatchSize = 500;
+
+    /**
+     * Number of bulk submissions of one delivery that run at once.
+     */
+    private int bulkParallelism = 4;
+
+    /**
+     * Maximum number of messages in flight on an AsyncSmsSender at once.
+     */
+    private int windowSize = 100;
+
+    /**
+     * Longest a message may wait for a free window slot before it fails.
+     */
+    private long windowTimeoutMs = 30_000;
+
+    /**
+     * Longest a delivery waits for the gateway to answer its messages.
+     */
+    private long submitTimeoutMs = 60_000;
+
+    /**
+     * Number of times the messages rejected by the gateway are resubmitted within a delivery.
+     */
+    private int retryAttempts = 1;
+
 } 
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.notification.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for template processing.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "notification.template")
+@Data
+public class TemplateProperties {
+
+    /**
+     * Maximum number of compiled templates kept in memory.
+     * Ignored when compiledCacheMaximumWeight is set.
+     */
+    private long compiledCacheMaximumSize = 500;
+
+    /**
+     * Maximum total size, in characters of template source, of the compiled templates kept in memory.
+     * Zero disables weight-based eviction in favour of compiledCacheMaximumSize.
+     */
+    private long compiledCacheMaximumWeight = 0;
+
+    /**
+     * Minutes a compiled template may stay unused before it is evicted.
+     */
+    private int compiledCacheExpireAfterAccessMinutes = 60;
+
+    /**
+     * Maximum number of (template name, channel) lookups kept in memory.
+     */
+    private long lookupCacheMaximumSize = 1000;
+
+    /**
+     * Minutes a template lookup is cached. Bounds staleness when templates are changed
+     * on another node or outside of the TemplateService.
+     */
+    private int lookupCacheExpireAfterWriteMinutes = 10;
+
+    /**
+     * Whether recipients of a batch sharing the same template and data are rendered once,
+     * with only their recipient slots filled in individually.
+     */
+    private boolean renderOnce = true;
+}
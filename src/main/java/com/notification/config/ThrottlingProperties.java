@@ -0,0 +1,108 @@
+package com.notification.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import com.notification.domain.notification.NotificationChannel;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration properties for delivery rate limiting. Throttling is switched on with
+ * notification.enable-throttling; the global rate is notification.max-notifications-per-second.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "notification.throttling")
+@Data
+public class ThrottlingProperties {
+
+    /**
+     * What to do with deliveries that exceed a limit.
+     */
+    private Mode mode = Mode.BLOCK;
+
+    /**
+     * Deliveries allowed at once on top of the global rate. Zero uses the global rate.
+     */
+    private int globalBurst = 0;
+
+    /**
+     * Longest a delivery may be delayed in BLOCK or QUEUE mode before it is shed instead.
+     */
+    private long maxWaitMs = 30_000;
+
+    /**
+     * Per-channel limits, applied on top of the global limit.
+     */
+    private Map<NotificationChannel, Limit> channels = new HashMap<>();
+
+    /**
+     * Limit applied to each sender (tenant) separately. Disabled while its rate is zero.
+     */
+    private Limit sender = new Limit();
+
+    /**
+     * Maximum number of senders whose limits are tracked at once.
+     */
+    private long maxTrackedSenders = 10_000;
+
+    /**
+     * Returns the throttling mode for a channel.
+     *
+     * @param channel The delivery channel
+     * @return the channel's mode, or the global mode
+     */
+    public Mode getMode(NotificationChannel channel) {
+        Limit limit = channels.get(channel);
+        return limit != null && limit.getMode() != null ? limit.getMode() : mode;
+    }
+
+    @Data
+    public static class Limit {
+
+        /**
+         * Deliveries per second. Zero disables the limit.
+         */
+        private double ratePerSecond = 0;
+
+        /**
+         * Deliveries allowed at once after an idle period. Zero uses the per-second rate.
+         */
+        private int burst = 0;
+
+        /**
+         * Mode overriding the global mode, for channel limits.
+         */
+        private Mode mode;
+
+        public boolean isEnabled() {
+            return ratePerSecond > 0;
+        }
+
+        public int getEffectiveBurst() {
+            return burst > 0 ? burst : (int) Math.max(1, Math.ceil(ratePerSecond));
+        }
+    }
+
+    public enum Mode {
+        /**
+         * Hold a delivery thread until the delivery is permitted.
+         */
+        BLOCK,
+
+        /**
+         * Release the thread and run the delivery once it is permitted. In-process sends record
+         * the outcome when the delivery completes; consumers that must acknowledge a message
+         * (channel queues, outbox, retries) still wait for it.
+         */
+        QUEUE,
+
+        /**
+         * Fail deliveries that are not permitted immediately.
+         */
+        SHED
+    }
+}
@@ -3,6 +3,7 @@ package com.notification.config;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -21,8 +22,26 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        // Set prefixes for topics and user destinations
-        registry.enableSimpleBroker(properties.getTopicPrefix());
+        WebSocketProperties.BrokerRelay brokerRelay = properties.getBrokerRelay();
+        if (brokerRelay.isEnabled()) {
+            // Shared broker: user sessions are known cluster-wide and each message reaches
+            // the node holding the session through the broker
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay(brokerRelay.getDestinationPrefixes())
+                    .setRelayHost(brokerRelay.getHost())
+                    .setRelayPort(brokerRelay.getPort())
+                    .setClientLogin(brokerRelay.getClientLogin())
+                    .setClientPasscode(brokerRelay.getClientPasscode())
+                    .setSystemLogin(brokerRelay.getSystemLogin())
+                    .setSystemPasscode(brokerRelay.getSystemPasscode())
+                    .setUserRegistryBroadcast(brokerRelay.getUserRegistryBroadcast())
+                    .setUserDestinationBroadcast(brokerRelay.getUserDestinationBroadcast());
+            if (brokerRelay.getVirtualHost() != null) {
+                relay.setVirtualHost(brokerRelay.getVirtualHost());
+            }
+        } else {
+            // Set prefixes for topics and user destinations
+            registry.enableSimpleBroker(properties.getTopicPrefix());
+        }
         registry.setApplicationDestinationPrefixes(properties.getApplicationDestinationPrefix());
         registry.setUserDestinationPrefix(properties.getUserDestinationPrefix());
     }
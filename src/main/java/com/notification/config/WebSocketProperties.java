@@ -29,6 +29,12 @@ public class WebSocketProperties {
      * Topic prefix for subscription.
      */
     private String topicPrefix = "/topic";
+
+    /**
+     * Whether a web address under the topic prefix is broadcast to that topic instead of
+     * being sent as a user destination.
+     */
+    private boolean topicBroadcastEnabled = false;
     
     /**
      * User destination prefix.
@@ -44,4 +50,73 @@ public class WebSocketProperties {
      * Allow origins for CORS.
      */
     private String[] allowedOrigins = {"*"};
-} 
\ No newline at end of file
+
+    /**
+     * External STOMP broker (e.g. RabbitMQ with the STOMP plugin) shared by all nodes.
+     * When enabled, it replaces the in-memory broker so web notifications reach users
+     * connected to any node.
+     */
+    private BrokerRelay brokerRelay = new BrokerRelay();
+
+    @Data
+    public static class BrokerRelay {
+
+        /**
+         * Whether to relay messages to an external STOMP broker instead of the in-memory broker.
+         */
+        private boolean enabled = false;
+
+        /**
+         * STOMP broker host.
+         */
+        private String host = "localhost";
+
+        /**
+         * STOMP broker port.
+         */
+        private int port = 61613;
+
+        /**
+         * Login used for the connections of WebSocket clients.
+         */
+        private String clientLogin = "guest";
+
+        /**
+         * Passcode used for the connections of WebSocket clients.
+         */
+        private String clientPasscode = "guest";
+
+        /**
+         * Login of the shared connection used to send messages from the application.
+         */
+        private String systemLogin = "guest";
+
+        /**
+         * Passcode of the shared connection used to send messages from the application.
+         */
+        private String systemPasscode = "guest";
+
+        /**
+         * Virtual host to connect to. Unset uses the broker's default.
+         */
+        private String virtualHost;
+
+        /**
+         * Destination prefixes handled by the broker. Must include the topic prefix and the
+         * prefix of the notification topic.
+         */
+        private String[] destinationPrefixes = {"/topic", "/queue"};
+
+        /**
+         * Topic on which nodes publish their connected users, so every node can resolve a
+         * user destination to the sessions of that user on any node.
+         */
+        private String userRegistryBroadcast = "/topic/simp-user-registry";
+
+        /**
+         * Topic to which messages for users without a known session are broadcast, so the
+         * node holding the session can still deliver them.
+         */
+        private String userDestinationBroadcast = "/topic/unresolved-user-destination";
+    }
+}
\ No newline at end of file
@@ -20,7 +20,8 @@ import java.util.UUID;
         })
 public class DeliveryAttempt extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_delivery_attempts_id_gen")
+    @SequenceGenerator(name = "notification_delivery_attempts_id_gen", sequenceName = "notification_delivery_attempts_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "attempt_id", nullable = false, unique = true)
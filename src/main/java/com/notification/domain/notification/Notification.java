@@ -13,10 +13,13 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
-@Table(name = "notification_notifications")
+@Table(name = "notification_notifications", indexes = {
+        @Index(name = "idx_notification_status_scheduled", columnList = "status, scheduled_time")
+})
 public class Notification extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_notifications_id_gen")
+    @SequenceGenerator(name = "notification_notifications_id_gen", sequenceName = "notification_notifications_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "notification_id", nullable = false, unique = true)
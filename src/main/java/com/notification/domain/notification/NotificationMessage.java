@@ -17,7 +17,8 @@ import java.util.Set;
 @Table(name = "notification_messages")
 public class NotificationMessage extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_messages_id_gen")
+    @SequenceGenerator(name = "notification_messages_id_gen", sequenceName = "notification_messages_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "template_name")
@@ -15,7 +15,8 @@ import java.util.Map;
 @Table(name = "notification_recipients")
 public class NotificationRecipient extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_recipients_id_gen")
+    @SequenceGenerator(name = "notification_recipients_id_gen", sequenceName = "notification_recipients_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,57 @@
+package com.notification.domain.outbox;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification waiting to be dispatched. Entries are written in the same transaction
+ * as the notification itself and removed once it has been dispatched.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "notification_outbox",
+        indexes = {
+                @Index(name = "idx_outbox_status_available", columnList = "status, available_at"),
+                @Index(name = "idx_outbox_status_locked", columnList = "status, locked_at")
+        })
+public class OutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_outbox_id_gen")
+    @SequenceGenerator(name = "notification_outbox_id_gen", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "notification_id", nullable = false)
+    private String notificationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OutboxStatus status;
+
+    /**
+     * Ordinal of the notification priority, so higher priorities are claimed first.
+     */
+    @Column(name = "priority", nullable = false)
+    private int priority;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "locked_by")
+    private String lockedBy;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package com.notification.domain.outbox;
+
+/**
+ * Lifecycle of an outbox entry.
+ */
+public enum OutboxStatus {
+    /**
+     * Waiting to be claimed by a worker.
+     */
+    PENDING,
+
+    /**
+     * Claimed by a worker and being dispatched.
+     */
+    PROCESSING,
+
+    /**
+     * Dispatch failed on every attempt.
+     */
+    FAILED
+}
@@ -16,6 +16,7 @@ import java.time.LocalDateTime;
 public class NotificationResponse {
 
     private Long id;
+    private String notificationId;
     private String recipient;
     private String subject;
     private String content;
@@ -38,6 +39,7 @@ public class NotificationResponse {
                                 NotificationMessageResolver.NotificationContent notificationContent,
                                 NotificationChannel channel) {
         this.id = notificationRecipient.getId();
+        this.notificationId = notificationRecipient.getNotification().getNotificationId();
         this.recipient = notificationRecipient.getRecipientId();
         this.subject = notificationRecipient.getMessage().getSubject();
         this.content = notificationContent.getContent();
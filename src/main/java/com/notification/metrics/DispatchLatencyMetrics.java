@@ -0,0 +1,43 @@
+package com.notification.metrics;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.notification.domain.notification.NotificationPriority;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records how long notifications take from being accepted to being dispatched, per priority,
+ * as {@code notification.dispatch.latency} with a percentile histogram.
+ */
+@Component
+public class DispatchLatencyMetrics {
+
+    private final Map<NotificationPriority, Timer> timers = new EnumMap<>(NotificationPriority.class);
+
+    public DispatchLatencyMetrics(MeterRegistry meterRegistry) {
+        for (NotificationPriority priority : NotificationPriority.values()) {
+            timers.put(priority, Timer.builder("notification.dispatch.latency")
+                    .description("Time from accepting a notification to finishing its dispatch")
+                    .tag("priority", priority.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Records the latency of a dispatched notification.
+     *
+     * @param priority           The notification priority, or null for NORMAL
+     * @param acceptedAtEpochMs  When the notification was accepted, in epoch milliseconds
+     */
+    public void record(NotificationPriority priority, long acceptedAtEpochMs) {
+        long latency = Math.max(0, System.currentTimeMillis() - acceptedAtEpochMs);
+        timers.get(priority != null ? priority : NotificationPriority.NORMAL).record(Duration.ofMillis(latency));
+    }
+}
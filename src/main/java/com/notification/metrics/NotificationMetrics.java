@@ -1,101 +1,208 @@
 package com.notification.metrics;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
+import org.springframework.stereotype.Component;
+
+import com.notification.config.MetricsProperties;
 import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationPriority;
 import com.notification.domain.notification.NotificationStatus;
+import com.notification.domain.notification.NotificationType;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Metrics collection for notifications.
+ * <p>
+ * Each stage of a notification's lifecycle is timed as {@code notification.stage.duration},
+ * tagged with the stage, channel, priority and outcome and bucketed by notification.metrics.slo;
+ * stages in progress are published as {@code notification.stage.in.flight}. Delivery outcomes
+ * are counted per recipient as {@code notification.deliveries} and status changes as
+ * {@code notification.status.changes}; notifications the dispatch executor refused are counted as
+ * {@code notification.dispatch.rejected}. Tags only take enum values or "none", so the number
+ * of series stays bounded.
  */
-
-@RequiredArgsConstructor
+@Component
 public class NotificationMetrics {
-    
+
+    private static final String NONE = "none";
+
+    /**
+     * Stages of a notification's lifecycle.
+     */
+    public enum Stage {
+        /** Saving a new notification. */
+        PERSIST,
+        /** Resolving a recipient's message for a channel, including rendering. */
+        RESOLVE,
+        /** Rendering a template. */
+        RENDER,
+        /** Sending one batch over a channel. */
+        DELIVER,
+        /** Claiming a notification for delivery or recording its outcome. */
+        STATUS_UPDATE
+    }
+
     private final MeterRegistry meterRegistry;
-    
-    // Total counts
-    @Getter private final AtomicLong totalNotifications = new AtomicLong(0);
-    @Getter private final AtomicLong successfulNotifications = new AtomicLong(0);
-    @Getter private final AtomicLong failedNotifications = new AtomicLong(0);
-    
-    // Counters by channel
-    private final Counter emailCounter;
-    private final Counter smsCounter;
-    private final Counter pushCounter;
-    private final Counter webCounter;
-    
-    // Timers
-    private final Timer emailTimer;
-    private final Timer smsTimer;
-    private final Timer pushTimer;
-    private final Timer webTimer;
-    
+    private final MetricsProperties metricsProperties;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<InFlightKey, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<DeliveryKey, Counter> deliveries = new ConcurrentHashMap<>();
+    private final Map<StatusKey, Counter> statusChanges = new ConcurrentHashMap<>();
+    private final Map<String, Counter> dispatchRejections = new ConcurrentHashMap<>();
+
+    public NotificationMetrics(MeterRegistry meterRegistry, MetricsProperties metricsProperties) {
+        this.meterRegistry = meterRegistry;
+        this.metricsProperties = metricsProperties;
+    }
+
     /**
-     * Records a notification attempt.
+     * Runs a stage and records its duration.
      *
-     * @param channel The delivery channel
+     * @param stage    The stage
+     * @param channel  The channel, or null if the stage is not channel-specific
+     * @param priority The notification priority, or null if unknown
+     * @param work     The stage's work
+     * @return the work's result
      */
-    public void recordNotificationAttempt(NotificationChannel channel) {
-        totalNotifications.incrementAndGet();
-        
-        switch (channel) {
-            case EMAIL:
-                emailCounter.increment();
-                break;
-            case SMS:
-                smsCounter.increment();
-                break;
-            case PUSH:
-                pushCounter.increment();
-                break;
-            case WEB:
-                webCounter.increment();
-                break;
-            default:
-                // No specific counter for other channels
-                break;
+    public <T> T time(Stage stage, NotificationChannel channel, NotificationPriority priority, Supplier<T> work) {
+        AtomicInteger active = inFlight.computeIfAbsent(new InFlightKey(stage, channel), this::registerInFlight);
+        active.incrementAndGet();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = work.get();
+            success = true;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            active.decrementAndGet();
+            timers.computeIfAbsent(new TimerKey(stage, channel, priority, success), this::registerTimer)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
         }
     }
-    
+
     /**
-     * Records a notification result.
+     * Runs a stage and records its duration.
      *
-     * @param status The notification status
+     * @param stage    The stage
+     * @param channel  The channel, or null if the stage is not channel-specific
+     * @param priority The notification priority, or null if unknown
+     * @param work     The stage's work
      */
-    public void recordNotificationResult(NotificationStatus status) {
-        if (status == NotificationStatus.SENT || status == NotificationStatus.DELIVERED) {
-            successfulNotifications.incrementAndGet();
-        } else if (status == NotificationStatus.FAILED) {
-            failedNotifications.incrementAndGet();
-        }
+    public void time(Stage stage, NotificationChannel channel, NotificationPriority priority, Runnable work) {
+        time(stage, channel, priority, () -> {
+            work.run();
+            return null;
+        });
     }
-    
+
     /**
-     * Gets a timer for measuring notification delivery time.
+     * Records the per-recipient outcome of a delivered batch.
      *
-     * @param channel The delivery channel
-     * @return The timer
+     * @param channel   The delivery channel
+     * @param type      The notification type, or null
+     * @param delivered Number of recipients delivered to
+     * @param failed    Number of recipients that failed
      */
-    public Timer getTimerForChannel(NotificationChannel channel) {
-        switch (channel) {
-            case EMAIL:
-                return emailTimer;
-            case SMS:
-                return smsTimer;
-            case PUSH:
-                return pushTimer;
-            case WEB:
-                return webTimer;
-            default:
-                // Use email timer as default
-                return emailTimer;
+    public void recordDeliveries(NotificationChannel channel, NotificationType type, int delivered, int failed) {
+        if (delivered > 0) {
+            deliveries.computeIfAbsent(new DeliveryKey(channel, type, true), this::registerDeliveries).increment(delivered);
+        }
+        if (failed > 0) {
+            deliveries.computeIfAbsent(new DeliveryKey(channel, type, false), this::registerDeliveries).increment(failed);
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Records a notification moving to a new status.
+     *
+     * @param status   The new status
+     * @param type     The notification type, or null
+     * @param priority The notification priority, or null
+     */
+    public void recordStatus(NotificationStatus status, NotificationType type, NotificationPriority priority) {
+        statusChanges.computeIfAbsent(new StatusKey(status, type, priority), this::registerStatusChanges).increment();
+    }
+
+    /**
+     * Records a notification the dispatch executor refused, so it was never delivered.
+     *
+     * @param priority The notification priority, or null
+     */
+    public void recordDispatchRejected(NotificationPriority priority) {
+        dispatchRejections.computeIfAbsent(tag(priority), this::registerDispatchRejections).increment();
+    }
+
+    private Timer registerTimer(TimerKey key) {
+        return Timer.builder("notification.stage.duration")
+                .description("Time spent in each stage of a notification's lifecycle")
+                .tag("stage", key.stage().name())
+                .tag("channel", tag(key.channel()))
+                .tag("priority", tag(key.priority()))
+                .tag("outcome", key.success() ? "success" : "failure")
+                .serviceLevelObjectives(metricsProperties.getSlo().toArray(Duration[]::new))
+                .publishPercentileHistogram(metricsProperties.isPercentileHistogram())
+                .register(meterRegistry);
+    }
+
+    private AtomicInteger registerInFlight(InFlightKey key) {
+        AtomicInteger active = new AtomicInteger();
+        Gauge.builder("notification.stage.in.flight", active, AtomicInteger::get)
+                .description("Notification stages currently in progress")
+                .tag("stage", key.stage().name())
+                .tag("channel", tag(key.channel()))
+                .register(meterRegistry);
+        return active;
+    }
+
+    private Counter registerDeliveries(DeliveryKey key) {
+        return Counter.builder("notification.deliveries")
+                .description("Recipients a notification was delivered to, or failed for, per channel")
+                .tag("channel", tag(key.channel()))
+                .tag("type", tag(key.type()))
+                .tag("outcome", key.success() ? "success" : "failure")
+                .register(meterRegistry);
+    }
+
+    private Counter registerStatusChanges(StatusKey key) {
+        return Counter.builder("notification.status.changes")
+                .description("Notifications moving to each status")
+                .tag("status", tag(key.status()))
+                .tag("type", tag(key.type()))
+                .tag("priority", tag(key.priority()))
+                .register(meterRegistry);
+    }
+
+    private Counter registerDispatchRejections(String priority) {
+        return Counter.builder("notification.dispatch.rejected")
+                .description("Notifications dropped because the dispatch executor refused them")
+                .tag("priority", priority)
+                .register(meterRegistry);
+    }
+
+    private static String tag(Enum<?> value) {
+        return value != null ? value.name() : NONE;
+    }
+
+    private record TimerKey(Stage stage, NotificationChannel channel, NotificationPriority priority, boolean success) {
+    }
+
+    private record InFlightKey(Stage stage, NotificationChannel channel) {
+    }
+
+    private record DeliveryKey(NotificationChannel channel, NotificationType type, boolean success) {
+    }
+
+    private record StatusKey(NotificationStatus status, NotificationType type, NotificationPriority priority) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.notification.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each batch a delivery service sends over its channel.
+ */
+@Name("com.notification.ChannelDelivery")
+@Label("Notification Channel Delivery")
+@Category(NotificationEvents.CATEGORY)
+@Description("Delivery of one batch of recipients by a channel's delivery service")
+@StackTrace(false)
+public class ChannelDeliveryEvent extends Event {
+
+    @Label("Notification Id")
+    public String notificationId;
+
+    @Label("Channel")
+    public String channel;
+
+    @Label("Recipients")
+    public int recipientCount;
+
+    @Label("Failed")
+    public int failedCount;
+}
@@ -0,0 +1,33 @@
+package com.notification.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when the messages of one or more recipients are resolved for a channel.
+ */
+@Name("com.notification.MessageResolve")
+@Label("Notification Message Resolve")
+@Category(NotificationEvents.CATEGORY)
+@Description("Template lookup and rendering of recipients' messages for a channel")
+@StackTrace(false)
+public class MessageResolveEvent extends Event {
+
+    @Label("Notification Id")
+    public String notificationId;
+
+    @Label("Channel")
+    public String channel;
+
+    @Label("Recipients")
+    public int recipientCount;
+
+    @Label("Resolved Size")
+    @DataAmount
+    public long contentBytes;
+}
@@ -0,0 +1,60 @@
+package com.notification.metrics.jfr;
+
+import java.util.Collection;
+
+/**
+ * Helpers shared by the notification JFR events. Sizes are only computed once an event
+ * is known to be recorded.
+ */
+public final class NotificationEvents {
+
+    /**
+     * Category under which all notification events are listed.
+     */
+    public static final String CATEGORY = "Notification";
+
+    private NotificationEvents() {
+    }
+
+    /**
+     * Returns the UTF-8 encoded size of a string without encoding it.
+     *
+     * @param value The string, or null
+     * @return its size in bytes
+     */
+    public static long utf8Length(CharSequence value) {
+        if (value == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the combined UTF-8 encoded size of some strings.
+     *
+     * @param values The strings
+     * @return their size in bytes
+     */
+    public static long utf8Length(Collection<? extends CharSequence> values) {
+        long bytes = 0;
+        for (CharSequence value : values) {
+            bytes += utf8Length(value);
+        }
+        return bytes;
+    }
+}
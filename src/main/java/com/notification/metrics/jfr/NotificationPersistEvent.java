@@ -0,0 +1,28 @@
+package com.notification.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when a new notification is saved.
+ */
+@Name("com.notification.Persist")
+@Label("Notification Persist")
+@Category(NotificationEvents.CATEGORY)
+@Description("Saving a new notification with its recipients and messages")
+@StackTrace(false)
+public class NotificationPersistEvent extends Event {
+
+    @Label("Notification Id")
+    public String notificationId;
+
+    @Label("Priority")
+    public String priority;
+
+    @Label("Recipients")
+    public int recipientCount;
+}
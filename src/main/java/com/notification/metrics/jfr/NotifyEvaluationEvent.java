@@ -0,0 +1,28 @@
+package com.notification.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when the @Notify aspect evaluates a call's recipients and template data.
+ */
+@Name("com.notification.NotifyEvaluation")
+@Label("@Notify Evaluation")
+@Category(NotificationEvents.CATEGORY)
+@Description("Evaluation of an advised method's recipients and template data")
+@StackTrace(false)
+public class NotifyEvaluationEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Template")
+    public String template;
+
+    @Label("Recipients")
+    public int recipientCount;
+}
@@ -0,0 +1,30 @@
+package com.notification.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for each message consumed from a channel queue.
+ */
+@Name("com.notification.QueueConsume")
+@Label("Notification Queue Consume")
+@Category(NotificationEvents.CATEGORY)
+@Description("Handling of a message from a channel queue, including delivery")
+@StackTrace(false)
+public class QueueConsumeEvent extends Event {
+
+    @Label("Notification Id")
+    public String notificationId;
+
+    @Label("Channel")
+    public String channel;
+
+    @Label("Message Size")
+    @DataAmount
+    public long messageBytes;
+}
@@ -0,0 +1,31 @@
+package com.notification.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for every template render.
+ */
+@Name("com.notification.TemplateRender")
+@Label("Notification Template Render")
+@Category(NotificationEvents.CATEGORY)
+@Description("Rendering of a template into a message")
+@StackTrace(false)
+public class TemplateRenderEvent extends Event {
+
+    @Label("Channel")
+    public String channel;
+
+    @Label("Template Size")
+    @DataAmount
+    public long templateBytes;
+
+    @Label("Rendered Size")
+    @DataAmount
+    public long renderedBytes;
+}
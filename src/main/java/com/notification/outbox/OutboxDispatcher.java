@@ -0,0 +1,128 @@
+package com.notification.outbox;
+
+import com.notification.config.OutboxProperties;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.domain.outbox.OutboxEntry;
+import com.notification.metrics.DispatchLatencyMetrics;
+import com.notification.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of workers that claim outbox entries in batches and dispatch their notifications.
+ * Throughput scales with the number of workers and the batch size.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "notification.outbox.enabled", havingValue = "true")
+public class OutboxDispatcher implements SmartLifecycle {
+
+    private final OutboxService outboxService;
+    private final NotificationService notificationService;
+    private final OutboxProperties outboxProperties;
+    private final DispatchLatencyMetrics dispatchLatencyMetrics;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong lastLockRelease = new AtomicLong();
+    private volatile boolean running;
+    private ExecutorService workers;
+
+    @Override
+    public void start() {
+        running = true;
+        workers = Executors.newFixedThreadPool(outboxProperties.getWorkers(),
+                new CustomizableThreadFactory("notification-outbox-"));
+        for (int i = 0; i < outboxProperties.getWorkers(); i++) {
+            String workerId = nodeId + "-" + i;
+            workers.execute(() -> poll(workerId));
+        }
+        log.info("Started {} outbox workers", outboxProperties.getWorkers());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void poll(String workerId) {
+        while (running) {
+            try {
+                releaseExpiredLocks();
+                List<OutboxEntry> entries = outboxService.claim(workerId, outboxProperties.getBatchSize());
+                for (OutboxEntry entry : entries) {
+                    dispatch(entry);
+                }
+                if (entries.isEmpty()) {
+                    Thread.sleep(outboxProperties.getPollIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error polling notification outbox", e);
+                try {
+                    Thread.sleep(outboxProperties.getPollIntervalMs());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(OutboxEntry entry) {
+        try {
+            if (!outboxService.renew(entry)) {
+                log.warn("Lease on outbox entry for notification {} expired before dispatch, skipping",
+                        entry.getNotificationId());
+                return;
+            }
+            notificationService.dispatchNotification(entry.getNotificationId());
+            outboxService.complete(entry);
+            dispatchLatencyMetrics.record(NotificationPriority.values()[entry.getPriority()],
+                    entry.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        } catch (Exception e) {
+            log.error("Error dispatching notification from outbox: {}", entry.getNotificationId(), e);
+            outboxService.fail(entry, e);
+        }
+    }
+
+    private void releaseExpiredLocks() {
+        long now = System.currentTimeMillis();
+        long last = lastLockRelease.get();
+        long interval = TimeUnit.SECONDS.toMillis(outboxProperties.getLeaseTimeoutSeconds()) / 2;
+        if (now - last >= interval && lastLockRelease.compareAndSet(last, now)) {
+            int released = outboxService.releaseExpiredLocks();
+            if (released > 0) {
+                log.warn("Released {} outbox entries with expired locks", released);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.notification.outbox;
+
+import com.notification.config.OutboxProperties;
+import com.notification.domain.notification.Notification;
+import com.notification.domain.outbox.OutboxEntry;
+import com.notification.domain.outbox.OutboxStatus;
+import com.notification.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes notifications to the outbox and manages the claim lifecycle of outbox entries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "notification.outbox.enabled", havingValue = "true")
+public class OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxProperties outboxProperties;
+
+    /**
+     * Adds a notification to the outbox. Joins the caller's transaction, so the entry
+     * only becomes visible to workers if the caller commits.
+     *
+     * @param notification The persisted notification
+     */
+    @Transactional
+    public void enqueue(Notification notification) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEntry entry = new OutboxEntry();
+        entry.setNotificationId(notification.getNotificationId());
+        entry.setStatus(OutboxStatus.PENDING);
+        entry.setPriority(notification.getPriority() != null ? notification.getPriority().ordinal() : 0);
+        entry.setAvailableAt(now);
+        entry.setCreatedAt(now);
+        outboxRepository.save(entry);
+    }
+
+    /**
+     * Claims due entries for a worker. Rows locked by other workers are skipped, so
+     * concurrent workers on any node never claim the same entry.
+     *
+     * @param workerId Identifier of the claiming worker
+     * @param limit    Maximum number of entries to claim
+     * @return the claimed entries
+     */
+    @Transactional
+    public List<OutboxEntry> claim(String workerId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEntry> entries = outboxRepository.lockDueEntries(now, limit);
+        for (OutboxEntry entry : entries) {
+            entry.setStatus(OutboxStatus.PROCESSING);
+            entry.setLockedBy(workerId);
+            entry.setLockedAt(now);
+            entry.setAttempts(entry.getAttempts() + 1);
+        }
+        return entries;
+    }
+
+    /**
+     * Renews the lease on a claimed entry right before it is dispatched, so that the lease
+     * covers each dispatch rather than the whole batch.
+     *
+     * @param entry The claimed entry
+     * @return false if the lease has expired and the entry may be held by another worker
+     */
+    @Transactional
+    public boolean renew(OutboxEntry entry) {
+        return outboxRepository.renewLock(entry.getId(), entry.getLockedBy(), LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Removes an entry whose notification has been dispatched, unless its lease has expired
+     * and it now belongs to another worker.
+     *
+     * @param entry The claimed entry
+     */
+    @Transactional
+    public void complete(OutboxEntry entry) {
+        if (outboxRepository.deleteClaimed(entry.getId(), entry.getLockedBy()) == 0) {
+            log.warn("Outbox entry for notification {} was released before it completed", entry.getNotificationId());
+        }
+    }
+
+    /**
+     * Records a failed dispatch and schedules the entry for another attempt,
+     * or marks it as failed once the maximum number of attempts is reached.
+     * Entries that now belong to another worker are left alone.
+     *
+     * @param entry The claimed entry
+     * @param error The dispatch error
+     */
+    @Transactional
+    public void fail(OutboxEntry entry, Exception error) {
+        outboxRepository.findById(entry.getId())
+                .filter(current -> Objects.equals(current.getLockedBy(), entry.getLockedBy()))
+                .ifPresent(current -> {
+                    current.setLockedBy(null);
+                    current.setLockedAt(null);
+                    current.setLastError(error.getMessage());
+                    if (current.getAttempts() >= outboxProperties.getMaxAttempts()) {
+                        log.error("Giving up on notification {} after {} attempts",
+                                current.getNotificationId(), current.getAttempts());
+                        current.setStatus(OutboxStatus.FAILED);
+                    } else {
+                        current.setStatus(OutboxStatus.PENDING);
+                        current.setAvailableAt(LocalDateTime.now()
+                                .plusSeconds((long) outboxProperties.getRetryDelaySeconds() * current.getAttempts()));
+                    }
+                });
+    }
+
+    /**
+     * Releases entries claimed by workers that did not finish them within the lease,
+     * e.g. because their node was restarted.
+     *
+     * @return the number of released entries
+     */
+    @Transactional
+    public int releaseExpiredLocks() {
+        return outboxRepository.releaseExpiredLocks(
+                LocalDateTime.now().minusSeconds(outboxProperties.getLeaseTimeoutSeconds()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.notification.queue;
+
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationPriority;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Queue message asking a channel's consumers to deliver a persisted notification over that channel.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChannelDispatchMessage {
+    private String notificationId;
+    private NotificationChannel channel;
+    private NotificationPriority priority;
+    private long publishedAt;
+}
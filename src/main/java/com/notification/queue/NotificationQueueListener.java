@@ -1,42 +1,144 @@
 package com.notification.queue;
 
-import com.notification.service.builder.NotificationRequest;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import com.notification.config.QueueProperties;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.metrics.DispatchLatencyMetrics;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.metrics.jfr.QueueConsumeEvent;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
-import com.notification.config.RabbitMQConfig;
-import com.notification.domain.notification.Notification;
 import com.notification.service.NotificationService;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Listener for notification queue messages.
+ * Listener for notification queue messages. Each channel is consumed from its own queue
+ * by its own listener container, with the concurrency, prefetch and batch size configured
+ * for that channel, and every consumer only delivers over its own channel.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 @ConditionalOnProperty(name = "notification.use-queue", havingValue = "true")
-public class NotificationQueueListener {
+public class NotificationQueueListener implements SmartLifecycle {
 
     private final NotificationService notificationService;
+    private final DispatchLatencyMetrics dispatchLatencyMetrics;
+    private final NotificationMetrics notificationMetrics;
+    private final MessageConverter messageConverter = new Jackson2JsonMessageConverter("com.notification.queue");
+    private final List<SimpleMessageListenerContainer> containers = new ArrayList<>();
+    private volatile boolean running;
+
+    public NotificationQueueListener(NotificationService notificationService,
+                                     DispatchLatencyMetrics dispatchLatencyMetrics,
+                                     NotificationMetrics notificationMetrics,
+                                     ConnectionFactory connectionFactory,
+                                     QueueProperties queueProperties) {
+        this.notificationService = notificationService;
+        this.dispatchLatencyMetrics = dispatchLatencyMetrics;
+        this.notificationMetrics = notificationMetrics;
+
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            QueueProperties.Consumer consumer = queueProperties.getConsumer(channel);
+
+            SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+            container.setQueueNames(queueProperties.getQueueName(channel));
+            container.setConcurrentConsumers(consumer.getConcurrentConsumers());
+            container.setMaxConcurrentConsumers(Math.max(consumer.getConcurrentConsumers(), consumer.getMaxConcurrentConsumers()));
+            container.setPrefetchCount(Math.max(consumer.getPrefetch(), consumer.getBatchSize()));
+            container.setBatchSize(consumer.getBatchSize());
+            container.setConsumerBatchEnabled(consumer.getBatchSize() > 1);
+            container.setMessageListener(new ChannelListener(channel));
+            container.setBeanName("notificationQueueListener-" + channel.name().toLowerCase());
+            containers.add(container);
+        }
+    }
+
+    @Override
+    public void start() {
+        for (SimpleMessageListenerContainer container : containers) {
+            container.afterPropertiesSet();
+            container.start();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (SimpleMessageListenerContainer container : containers) {
+            container.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
 
     /**
-     * Handles notifications received from the queue.
+     * Handles a notification received from a channel's queue.
      *
-     * @param request The notification to process
+     * @param message The notification to deliver
+     * @param channel The channel the message was consumed for
      */
-    @RabbitListener(queues = "${notification.queue.name}")
-    public void handleNotification(NotificationRequest request) {
-        log.info("Received notification from queue: {}", request.getNotificationId());
+    public void handleNotification(ChannelDispatchMessage message, NotificationChannel channel) {
+        if (message.getChannel() != channel) {
+            log.warn("Ignoring {} message for notification {} received on the {} queue",
+                    message.getChannel(), message.getNotificationId(), channel);
+            return;
+        }
+        log.info("Received notification from {} queue: {}", channel, message.getNotificationId());
 
         try {
-            notificationService.processNotification(request);
-            log.info("Successfully processed notification from queue: {}", request.getNotificationId());
+            notificationService.dispatchNotification(message.getNotificationId(), channel);
+            notificationMetrics.time(NotificationMetrics.Stage.STATUS_UPDATE, channel, message.getPriority(),
+                    () -> notificationService.completeIfDelivered(message.getNotificationId()));
+            if (message.getPublishedAt() > 0) {
+                dispatchLatencyMetrics.record(message.getPriority(), message.getPublishedAt());
+            }
+            log.info("Successfully processed notification from {} queue: {}", channel, message.getNotificationId());
         } catch (Exception e) {
-            log.error("Error processing notification from queue: {}", request.getNotificationId(), e);
+            log.error("Error processing notification from {} queue: {}", channel, message.getNotificationId(), e);
+        }
+    }
+
+    private class ChannelListener implements BatchMessageListener {
+        private final NotificationChannel channel;
+
+        ChannelListener(NotificationChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            QueueConsumeEvent event = new QueueConsumeEvent();
+            event.begin();
+            ChannelDispatchMessage dispatchMessage = (ChannelDispatchMessage) messageConverter.fromMessage(message);
+            handleNotification(dispatchMessage, channel);
+            if (event.shouldCommit()) {
+                event.notificationId = dispatchMessage.getNotificationId();
+                event.channel = channel.name();
+                event.messageBytes = message.getBody().length;
+                event.commit();
+            }
+        }
+
+        @Override
+        public void onMessageBatch(List<Message> messages) {
+            for (Message message : messages) {
+                onMessage(message);
+            }
         }
     }
-} 
\ No newline at end of file
+}
@@ -1,10 +1,12 @@
 package com.notification.queue;
 
 import com.notification.domain.notification.NotificationChannel;
-import com.notification.service.builder.NotificationRequest;
+import com.notification.domain.notification.NotificationPriority;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.notification.config.QueueProperties;
 import com.notification.domain.notification.Notification;
@@ -12,6 +14,8 @@ import com.notification.domain.notification.Notification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Set;
+
 /**
  * Sends notifications to the RabbitMQ queue.
  */
@@ -25,16 +29,42 @@ public class NotificationQueueSender {
     private final QueueProperties queueProperties;
 
     /**
-     * Sends a notification to the queue for asynchronous processing.
+     * Sends a persisted notification to the queues of its channels for asynchronous delivery.
+     * Inside a transaction the messages are published after commit, so consumers never see
+     * a notification that is not in the database yet.
      *
-     * @param request The notification to send
+     * @param notification The notification to send
      */
-    public void sendNotification(NotificationRequest request) {
-      //  log.info("Sending notification to queue: {}", notification.getId());
+    public void sendNotification(Notification notification) {
+        String notificationId = notification.getNotificationId();
+        NotificationPriority priority = notification.getPriority() != null ?
+                notification.getPriority() : NotificationPriority.NORMAL;
+        Set<NotificationChannel> channels = Set.copyOf(notification.getChannels());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(notificationId, priority, channels);
+                }
+            });
+        } else {
+            publish(notificationId, priority, channels);
+        }
+    }
+
+    private void publish(String notificationId, NotificationPriority priority, Set<NotificationChannel> channels) {
+        log.debug("Sending {} notification {} to queue for channels {}", priority, notificationId, channels);
 
-        for (NotificationChannel channel : request.getChannels()) {
-            String routingKey = queueProperties.getRoutingKey() + "." + channel.name().toLowerCase();
-            rabbitTemplate.convertAndSend(queueProperties.getExchange(), routingKey, request);
+        long publishedAt = System.currentTimeMillis();
+        for (NotificationChannel channel : channels) {
+            rabbitTemplate.convertAndSend(queueProperties.getExchange(), queueProperties.getRoutingKey(channel),
+                    new ChannelDispatchMessage(notificationId, channel, priority, publishedAt),
+                    message -> {
+                        // The broker delivers higher priorities first from queues declared with x-max-priority
+                        message.getMessageProperties().setPriority(priority.ordinal());
+                        return message;
+                    });
         }
     }
-} 
\ No newline at end of file
+}
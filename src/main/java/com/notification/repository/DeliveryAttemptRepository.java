@@ -0,0 +1,37 @@
+package com.notification.repository;
+
+import com.notification.domain.notification.DeliveryAttempt;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for delivery attempts.
+ */
+@Repository
+public interface DeliveryAttemptRepository extends JpaRepository<DeliveryAttempt, Long> {
+
+    /**
+     * Locks failed attempts whose retry is due, skipping rows already locked by other nodes.
+     * Served by the next_retry_time index. Must be called inside a transaction; the locks
+     * are held until it ends.
+     *
+     * @param now   The current time
+     * @param limit Maximum number of attempts to lock
+     * @return the locked attempts, longest overdue first
+     */
+    @Query(value = "SELECT * FROM notification_delivery_attempts " +
+            "WHERE next_retry_time <= :now " +
+            "ORDER BY next_retry_time " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<DeliveryAttempt> lockDueRetries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByNextRetryTimeIsNotNull();
+
+    @Query("SELECT MIN(a.nextRetryTime) FROM DeliveryAttempt a WHERE a.nextRetryTime IS NOT NULL")
+    LocalDateTime findEarliestNextRetryTime();
+}
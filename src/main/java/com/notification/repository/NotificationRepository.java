@@ -2,12 +2,18 @@ package com.notification.repository;
 
 import com.notification.domain.notification.Notification;
 import com.notification.domain.notification.NotificationStatus;
+import com.notification.scheduler.ScheduledNotification;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,4 +24,85 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
 
     Optional<Notification> findByNotificationId(String notificationId);
-}
\ No newline at end of file
+
+    /**
+     * Loads a notification and locks its row until the end of the transaction.
+     *
+     * @param notificationId The notification id
+     * @return the notification, if it exists
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Notification n WHERE n.notificationId = :notificationId")
+    Optional<Notification> findByNotificationIdForUpdate(@Param("notificationId") String notificationId);
+
+    /**
+     * Locks scheduled notifications due before the horizon, skipping rows already locked by
+     * other nodes. Served by the (status, scheduled_time) index, so only due rows are read.
+     * Must be called inside a transaction; the locks are held until it ends.
+     *
+     * @param horizon Notifications due before this time are locked
+     * @param limit   Maximum number of notifications to lock
+     * @return ids of the locked notifications, earliest first
+     */
+    @Query(value = "SELECT id FROM notification_notifications " +
+            "WHERE status = 'SCHEDULED' AND scheduled_time <= :horizon " +
+            "ORDER BY scheduled_time " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueScheduled(@Param("horizon") LocalDateTime horizon, @Param("limit") int limit);
+
+    /**
+     * Marks scheduled notifications as claimed; updatedAt serves as the lease start.
+     *
+     * @param ids       The notification row ids
+     * @param claimedAt The claim time
+     * @return the number of claimed notifications
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = com.notification.domain.notification.NotificationStatus.PENDING, " +
+            "n.updatedAt = :claimedAt WHERE n.id IN :ids")
+    int markClaimed(@Param("ids") Collection<Long> ids, @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Query("SELECT new com.notification.scheduler.ScheduledNotification(n.notificationId, n.scheduledTime, n.priority) " +
+            "FROM Notification n WHERE n.id IN :ids")
+    List<ScheduledNotification> findScheduled(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Moves a claimed scheduled notification to SENDING as it is fired, so that its claim can
+     * no longer expire. Only one caller can fire a claim: once it has been fired, or released
+     * and claimed again, the update matches no row.
+     *
+     * @param notificationId The notification id
+     * @param firedAt        The time it was fired
+     * @return 1 if the notification was fired, 0 if it was not claimed
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.status = com.notification.domain.notification.NotificationStatus.SENDING, " +
+            "n.updatedAt = :firedAt WHERE n.notificationId = :notificationId " +
+            "AND n.status = com.notification.domain.notification.NotificationStatus.PENDING")
+    int markFired(@Param("notificationId") String notificationId, @Param("firedAt") LocalDateTime firedAt);
+
+    /**
+     * Returns claimed scheduled notifications to the SCHEDULED state.
+     *
+     * @param notificationIds The notification ids
+     * @return the number of released notifications
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = com.notification.domain.notification.NotificationStatus.SCHEDULED " +
+            "WHERE n.notificationId IN :notificationIds " +
+            "AND n.status = com.notification.domain.notification.NotificationStatus.PENDING")
+    int releaseScheduled(@Param("notificationIds") Collection<String> notificationIds);
+
+    /**
+     * Releases scheduled notifications claimed by a node that did not fire them within the lease.
+     * Fired notifications have left PENDING and are never released.
+     *
+     * @param claimedBefore Notifications claimed before this time are released
+     * @return the number of released notifications
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = com.notification.domain.notification.NotificationStatus.SCHEDULED " +
+            "WHERE n.status = com.notification.domain.notification.NotificationStatus.PENDING " +
+            "AND n.scheduledTime IS NOT NULL AND n.updatedAt < :claimedBefore")
+    int releaseExpiredScheduledClaims(@Param("claimedBefore") LocalDateTime claimedBefore);
+}
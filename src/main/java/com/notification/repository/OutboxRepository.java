@@ -0,0 +1,68 @@
+package com.notification.repository;
+
+import com.notification.domain.outbox.OutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for the notification outbox.
+ */
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
+
+    /**
+     * Locks pending entries that are due, skipping rows already locked by other workers.
+     * Must be called inside a transaction; the locks are held until it ends.
+     *
+     * @param now   The current time
+     * @param limit Maximum number of entries to lock
+     * @return the locked entries, highest priority first
+     */
+    @Query(value = "SELECT * FROM notification_outbox " +
+            "WHERE status = 'PENDING' AND available_at <= :now " +
+            "ORDER BY priority DESC, id " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEntry> lockDueEntries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Extends a worker's lease on an entry it still holds.
+     *
+     * @param id       The entry id
+     * @param workerId The worker holding the entry
+     * @param now      The current time
+     * @return 1 if the lease was extended, 0 if the entry is no longer held by the worker
+     */
+    @Modifying
+    @Query("UPDATE OutboxEntry e SET e.lockedAt = :now WHERE e.id = :id AND e.lockedBy = :workerId " +
+            "AND e.status = com.notification.domain.outbox.OutboxStatus.PROCESSING")
+    int renewLock(@Param("id") Long id, @Param("workerId") String workerId, @Param("now") LocalDateTime now);
+
+    /**
+     * Removes an entry if it is still held by the worker.
+     *
+     * @param id       The entry id
+     * @param workerId The worker holding the entry
+     * @return the number of removed entries
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEntry e WHERE e.id = :id AND e.lockedBy = :workerId")
+    int deleteClaimed(@Param("id") Long id, @Param("workerId") String workerId);
+
+    /**
+     * Releases entries whose worker has not finished them within the lease.
+     *
+     * @param lockedBefore Entries locked before this time are released
+     * @return the number of released entries
+     */
+    @Modifying
+    @Query("UPDATE OutboxEntry e SET e.status = com.notification.domain.outbox.OutboxStatus.PENDING, " +
+            "e.lockedBy = null, e.lockedAt = null " +
+            "WHERE e.status = com.notification.domain.outbox.OutboxStatus.PROCESSING AND e.lockedAt < :lockedBefore")
+    int releaseExpiredLocks(@Param("lockedBefore") LocalDateTime lockedBefore);
+}
@@ -1,49 +1,261 @@
 package com.notification.scheduler;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import com.notification.config.RetryProperties;
+import com.notification.config.SchedulerProperties;
+import com.notification.domain.notification.NotificationPriority;
 import com.notification.service.NotificationService;
+import com.notification.service.RetryService;
+import com.notification.service.delivery.DeliveryExecutors;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Scheduler for notification processing tasks.
+ * <p>
+ * Scheduled notifications are fired in two layers. A poller claims rows coming due within
+ * the horizon through the (status, scheduled_time) index, and a timing wheel holds them in
+ * memory until they are due, so each notification is read once and fired within a tick.
+ * Claims not fired before the lease expires (e.g. after a crash) are released and claimed again.
+ * <p>
+ * Failed deliveries whose retry is due are claimed in batches the same way and retried
+ * for their (recipient, channel) pair only.
  */
-
-@RequiredArgsConstructor
+@Component
 @Slf4j
 @ConditionalOnProperty(name = "notification.scheduler.enabled", havingValue = "true")
-public class NotificationScheduler {
+public class NotificationScheduler implements SmartLifecycle {
     
     private final NotificationService notificationService;
-    
+    private final ScheduledNotificationService scheduledNotificationService;
+    private final RetryService retryService;
+    private final RetryProperties retryProperties;
+    private final DeliveryExecutors deliveryExecutors;
+    private final SchedulerProperties schedulerProperties;
+    private final TimingWheel<ScheduledNotification> timingWheel;
+
+    private ScheduledExecutorService executor;
+    private long lastClaimRelease;
+    private volatile boolean running;
+
+    public NotificationScheduler(NotificationService notificationService,
+                                 ScheduledNotificationService scheduledNotificationService,
+                                 RetryService retryService,
+                                 RetryProperties retryProperties,
+                                 DeliveryExecutors deliveryExecutors,
+                                 SchedulerProperties schedulerProperties) {
+        this.notificationService = notificationService;
+        this.scheduledNotificationService = scheduledNotificationService;
+        this.retryService = retryService;
+        this.retryProperties = retryProperties;
+        this.deliveryExecutors = deliveryExecutors;
+        this.schedulerProperties = schedulerProperties;
+        this.timingWheel = new TimingWheel<>(schedulerProperties.getTickMs(), schedulerProperties.getWheelSize(),
+                TimeUnit.SECONDS.toMillis(schedulerProperties.getHorizonSeconds()) + schedulerProperties.getScheduledNotificationsInterval(),
+                System.currentTimeMillis());
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newScheduledThreadPool(3, new CustomizableThreadFactory("notification-scheduler-"));
+        executor.scheduleWithFixedDelay(this::processScheduledNotifications,
+                0, schedulerProperties.getScheduledNotificationsInterval(), TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(this::fireDueNotifications,
+                schedulerProperties.getTickMs(), schedulerProperties.getTickMs(), TimeUnit.MILLISECONDS);
+        if (retryProperties.isEnabled()) {
+            executor.scheduleWithFixedDelay(this::processRetryNotifications,
+                    0, schedulerProperties.getRetryNotificationsInterval(), TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Hand claims this node will not fire back to the other nodes right away
+        List<ScheduledNotification> unfired;
+        synchronized (timingWheel) {
+            unfired = timingWheel.clear();
+        }
+        try {
+            scheduledNotificationService.release(unfired.stream().map(ScheduledNotification::notificationId).toList());
+        } catch (Exception e) {
+            log.warn("Failed to release {} scheduled notifications, they will be released after the lease", unfired.size(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
     /**
-     * Processes scheduled notifications that are due to be sent.
+     * Claims scheduled notifications coming due within the horizon into the timing wheel.
      */
-   /* @Scheduled(fixedDelayString = "${notification.scheduler.scheduled-notifications-interval:60000}")
     public void processScheduledNotifications() {
-        log.info("Processing scheduled notifications");
         try {
-            notificationService.processScheduledNotifications();
+            releaseExpiredClaims();
+
+            LocalDateTime horizon = LocalDateTime.now().plusSeconds(schedulerProperties.getHorizonSeconds());
+            List<ScheduledNotification> claimed;
+            do {
+                claimed = scheduledNotificationService.claimDue(horizon, schedulerProperties.getBatchSize());
+                List<ScheduledNotification> overdue = new ArrayList<>();
+                for (ScheduledNotification notification : claimed) {
+                    long dueMs = notification.scheduledTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    boolean scheduled;
+                    synchronized (timingWheel) {
+                        scheduled = timingWheel.schedule(dueMs, notification);
+                    }
+                    if (!scheduled) {
+                        overdue.add(notification);
+                    }
+                }
+                fire(overdue);
+                if (!claimed.isEmpty()) {
+                    log.debug("Claimed {} scheduled notifications", claimed.size());
+                }
+            } while (claimed.size() == schedulerProperties.getBatchSize() && running);
         } catch (Exception e) {
             log.error("Error processing scheduled notifications", e);
         }
     }
-    
-    *//**
-     * Processes failed notifications that are eligible for retry.
-     *//*
-    @Scheduled(fixedDelayString = "${notification.scheduler.retry-notifications-interval:300000}")
+
+    /**
+     * Claims failed deliveries whose retry is due and retries them on the dispatch executor.
+     * Claiming stops once the executor refuses a retry; the refused attempts are made due
+     * again at once. Retries never run on the scheduler thread, whatever the rejection policy.
+     */
     public void processRetryNotifications() {
-        log.info("Processing retry notifications");
         try {
-            notificationService.processRetryNotifications();
+            List<Long> claimed;
+            List<Long> refused = new ArrayList<>();
+            do {
+                claimed = retryService.claimDueRetries(retryProperties.getBatchSize());
+                for (Long attemptId : claimed) {
+                    if (!refused.isEmpty() || !retry(attemptId)) {
+                        refused.add(attemptId);
+                    }
+                }
+                if (!claimed.isEmpty()) {
+                    log.debug("Claimed {} due retries", claimed.size());
+                }
+            } while (claimed.size() == retryProperties.getBatchSize() && refused.isEmpty() && running);
+            if (!refused.isEmpty()) {
+                log.warn("Dispatch executor is saturated, releasing {} claimed retries", refused.size());
+                retryService.releaseRetries(refused);
+            }
+            retryService.refreshMetrics();
         } catch (Exception e) {
             log.error("Error processing retry notifications", e);
         }
-    }*/
-} 
\ No newline at end of file
+    }
+
+    private boolean retry(Long attemptId) {
+        try {
+            deliveryExecutors.tryExecute(NotificationPriority.NORMAL, () -> {
+                try {
+                    notificationService.retryDelivery(attemptId);
+                } catch (Exception e) {
+                    log.error("Error retrying delivery attempt: {}", attemptId, e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void fireDueNotifications() {
+        try {
+            List<ScheduledNotification> due;
+            synchronized (timingWheel) {
+                due = timingWheel.advance(System.currentTimeMillis());
+            }
+            fire(due);
+        } catch (Exception e) {
+            log.error("Error firing scheduled notifications", e);
+        }
+    }
+
+    /**
+     * Hands notifications to the dispatch executor. Claims of notifications the executor
+     * refuses are released right away, so another poll can claim them instead of waiting
+     * for the lease to expire.
+     */
+    private void fire(List<ScheduledNotification> notifications) {
+        List<String> refused = new ArrayList<>();
+        for (ScheduledNotification notification : notifications) {
+            if (!fire(notification)) {
+                refused.add(notification.notificationId());
+            }
+        }
+        release(refused);
+    }
+
+    private boolean fire(ScheduledNotification notification) {
+        try {
+            deliveryExecutors.execute(notification.priority(), () -> {
+                try {
+                    notificationService.dispatchScheduledNotification(notification.notificationId());
+                } catch (Exception e) {
+                    log.error("Error dispatching scheduled notification: {}", notification.notificationId(), e);
+                    notificationService.markFailed(notification.notificationId());
+                }
+            }).whenComplete((ignored, e) -> {
+                // Cancelled when a DISCARD rejection dropped the task without running it
+                if (e instanceof CancellationException) {
+                    release(List.of(notification.notificationId()));
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void release(List<String> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return;
+        }
+        log.warn("Dispatch executor refused {} scheduled notifications, releasing their claims", notificationIds.size());
+        try {
+            scheduledNotificationService.release(notificationIds);
+        } catch (Exception e) {
+            log.warn("Failed to release {} scheduled notifications, they will be released after the lease",
+                    notificationIds.size(), e);
+        }
+    }
+
+    private void releaseExpiredClaims() {
+        long now = System.currentTimeMillis();
+        if (now - lastClaimRelease >= TimeUnit.SECONDS.toMillis(schedulerProperties.getLeaseTimeoutSeconds()) / 2) {
+            lastClaimRelease = now;
+            int released = scheduledNotificationService.releaseExpiredClaims();
+            if (released > 0) {
+                log.warn("Released {} scheduled notifications whose claim expired", released);
+            }
+        }
+    }
+}
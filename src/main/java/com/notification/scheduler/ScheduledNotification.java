@@ -0,0 +1,15 @@
+package com.notification.scheduler;
+
+import com.notification.domain.notification.NotificationPriority;
+
+import java.time.LocalDateTime;
+
+/**
+ * A claimed scheduled notification waiting in the timing wheel.
+ *
+ * @param notificationId The notification id
+ * @param scheduledTime  When the notification is due
+ * @param priority       The notification priority
+ */
+public record ScheduledNotification(String notificationId, LocalDateTime scheduledTime, NotificationPriority priority) {
+}
@@ -0,0 +1,66 @@
+package com.notification.scheduler;
+
+import com.notification.config.SchedulerProperties;
+import com.notification.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Manages the claim lifecycle of scheduled notifications.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "notification.scheduler.enabled", havingValue = "true")
+public class ScheduledNotificationService {
+
+    private final NotificationRepository notificationRepository;
+    private final SchedulerProperties schedulerProperties;
+
+    /**
+     * Claims scheduled notifications due before the horizon. Rows locked by other nodes are
+     * skipped, so concurrent nodes never claim the same notification.
+     *
+     * @param horizon Notifications due before this time are claimed
+     * @param limit   Maximum number of notifications to claim
+     * @return the claimed notifications
+     */
+    @Transactional
+    public List<ScheduledNotification> claimDue(LocalDateTime horizon, int limit) {
+        List<Long> ids = notificationRepository.lockDueScheduled(horizon, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        notificationRepository.markClaimed(ids, LocalDateTime.now());
+        return notificationRepository.findScheduled(ids);
+    }
+
+    /**
+     * Returns claimed notifications that will not be fired by this node, e.g. on shutdown.
+     *
+     * @param notificationIds The notification ids
+     */
+    @Transactional
+    public void release(Collection<String> notificationIds) {
+        if (!notificationIds.isEmpty()) {
+            notificationRepository.releaseScheduled(notificationIds);
+        }
+    }
+
+    /**
+     * Releases notifications claimed by nodes that did not fire them within the lease,
+     * e.g. because the node was restarted.
+     *
+     * @return the number of released notifications
+     */
+    @Transactional
+    public int releaseExpiredClaims() {
+        return notificationRepository.releaseExpiredScheduledClaims(
+                LocalDateTime.now().minusSeconds(schedulerProperties.getLeaseTimeoutSeconds()));
+    }
+}
@@ -0,0 +1,143 @@
+package com.notification.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel. Level 0 has one slot per tick, and every higher level's slot
+ * spans a full rotation of the level below. Entries are placed on the lowest level whose
+ * rotation reaches their due tick and cascade down as the wheel turns, so scheduling and
+ * firing cost O(1) per entry regardless of how many entries are pending.
+ * <p>
+ * Levels are added until they cover maxDelayMs; entries beyond that wait in an overflow
+ * list that is re-examined whenever the top level turns. Not thread-safe; callers synchronize.
+ */
+final class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] ticksPerSlot;
+    private final List<Entry<T>>[][] slots;
+    private List<Entry<T>> overflow = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMs, int wheelSize, long maxDelayMs, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+
+        List<Long> spans = new ArrayList<>();
+        long ticksPerLevelSlot = 1;
+        long maxTicks = Math.max(1, maxDelayMs / tickMs);
+        do {
+            spans.add(ticksPerLevelSlot);
+            ticksPerLevelSlot = Math.multiplyExact(ticksPerLevelSlot, wheelSize);
+        } while (ticksPerLevelSlot < maxTicks);
+
+        this.ticksPerSlot = spans.stream().mapToLong(Long::longValue).toArray();
+        this.slots = new List[ticksPerSlot.length][wheelSize];
+        for (List<Entry<T>>[] level : slots) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i] = new ArrayList<>();
+            }
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param dueMs When the entry is due, in epoch milliseconds
+     * @param value The entry
+     * @return false if the entry is already due and was not added
+     */
+    boolean schedule(long dueMs, T value) {
+        long dueTick = Math.floorDiv(dueMs + tickMs - 1, tickMs);
+        if (dueTick <= currentTick) {
+            return false;
+        }
+        place(new Entry<>(dueTick, value));
+        size++;
+        return true;
+    }
+
+    /**
+     * Turns the wheel up to the given time.
+     *
+     * @param nowMs The current time, in epoch milliseconds
+     * @return entries that came due, in due order
+     */
+    List<T> advance(long nowMs) {
+        List<T> due = new ArrayList<>();
+        long targetTick = nowMs / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Cascade from the top down so entries only ever move to slots that are still ahead
+            for (int level = ticksPerSlot.length - 1; level >= 0; level--) {
+                if (currentTick % ticksPerSlot[level] != 0) {
+                    continue;
+                }
+                if (level == ticksPerSlot.length - 1 && !overflow.isEmpty()
+                        && currentTick % (ticksPerSlot[level] * wheelSize) == 0) {
+                    List<Entry<T>> pending = overflow;
+                    overflow = new ArrayList<>();
+                    pending.forEach(entry -> requeue(entry, due));
+                }
+                int slot = (int) ((currentTick / ticksPerSlot[level]) % wheelSize);
+                List<Entry<T>> entries = slots[level][slot];
+                if (!entries.isEmpty()) {
+                    slots[level][slot] = new ArrayList<>();
+                    entries.forEach(entry -> requeue(entry, due));
+                }
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Removes all entries.
+     *
+     * @return the removed entries
+     */
+    List<T> clear() {
+        List<T> values = new ArrayList<>(size);
+        for (List<Entry<T>>[] level : slots) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i].forEach(entry -> values.add(entry.value));
+                level[i] = new ArrayList<>();
+            }
+        }
+        overflow.forEach(entry -> values.add(entry.value));
+        overflow = new ArrayList<>();
+        size = 0;
+        return values;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void requeue(Entry<T> entry, List<T> due) {
+        if (entry.dueTick <= currentTick) {
+            due.add(entry.value);
+            size--;
+        } else {
+            place(entry);
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        for (int level = 0; level < ticksPerSlot.length; level++) {
+            long slotIndex = entry.dueTick / ticksPerSlot[level];
+            if (slotIndex - currentTick / ticksPerSlot[level] < wheelSize) {
+                slots[level][(int) (slotIndex % wheelSize)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private record Entry<T>(long dueTick, T value) {
+    }
+}
@@ -0,0 +1,316 @@
+package com.notification.service;
+
+import com.notification.config.ThrottlingProperties;
+import com.notification.domain.notification.DeliveryAttempt;
+import com.notification.domain.notification.Notification;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationRecipient;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.metrics.jfr.ChannelDeliveryEvent;
+import com.notification.service.delivery.DeliveryExecutors;
+import com.notification.service.delivery.DeliveryResult;
+import com.notification.service.delivery.DeliveryService;
+import com.notification.service.delivery.DeliveryServiceFactory;
+import com.notification.service.throttle.NotificationThrottler;
+import com.notification.service.throttle.ThrottledException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans a notification out to its recipients, dispatching every (recipient, channel)
+ * pair exactly once. Each channel receives a single batch containing only the
+ * recipients that have an address for it, run on that channel's executor so the
+ * channels of a notification are delivered in parallel. When throttling is enabled,
+ * batches are split into chunks no larger than the tightest burst allowance and each
+ * chunk waits for its rate-limit permits.
+ * <p>
+ * Sending and recording are separate steps: {@link #send(Notification)} only reads the
+ * notification and needs no transaction, while {@link #record} writes the delivery attempts
+ * and is meant to run in a short transaction of its own once the batches complete, so no
+ * database connection is held while messages are in flight.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+
+    private final DeliveryServiceFactory deliveryServiceFactory;
+    private final DeliveryExecutors deliveryExecutors;
+    private final NotificationThrottler notificationThrottler;
+    private final RetryService retryService;
+    private final NotificationMetrics notificationMetrics;
+
+    /**
+     * Delivers the notification over all of its channels and waits for the outcome.
+     * The notification is not modified.
+     *
+     * @param notification The notification to deliver, with its recipients and their addresses loaded
+     * @return the outcome of each channel
+     */
+    public Map<NotificationChannel, DeliveryResult> send(Notification notification) {
+        return sendAsync(notification).join();
+    }
+
+    /**
+     * Delivers the notification over all of its channels without waiting for the outcome.
+     * Chunks that QUEUE-mode throttling delays hold no thread until their permits are due,
+     * including the caller's. The notification is not modified.
+     *
+     * @param notification The notification to deliver, with its recipients and their addresses loaded
+     * @return the outcome of each channel, completed once every channel has finished; never exceptional
+     */
+    public CompletableFuture<Map<NotificationChannel, DeliveryResult>> sendAsync(Notification notification) {
+        Map<NotificationChannel, CompletableFuture<DeliveryResult>> pending = new EnumMap<>(NotificationChannel.class);
+        for (NotificationChannel channel : notification.getChannels()) {
+            List<NotificationRecipient> recipients = recipientsFor(notification, channel);
+            if (!recipients.isEmpty()) {
+                pending.put(channel, combine(submit(notification, channel, recipients), channel));
+            }
+        }
+
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<NotificationChannel, DeliveryResult> results = new EnumMap<>(NotificationChannel.class);
+            for (Map.Entry<NotificationChannel, CompletableFuture<DeliveryResult>> result : pending.entrySet()) {
+                recordMetrics(notification, result.getKey(), result.getValue().join());
+                results.put(result.getKey(), result.getValue().join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Delivers the notification to the given recipients over a single channel and waits for
+     * the outcome. The notification is not modified.
+     *
+     * @param notification The notification to deliver
+     * @param channel      The channel to deliver over
+     * @param recipients   The recipients to deliver to, with their addresses loaded
+     * @return the outcome for each recipient
+     */
+    public DeliveryResult send(Notification notification, NotificationChannel channel, List<NotificationRecipient> recipients) {
+        if (recipients.isEmpty()) {
+            return new DeliveryResult();
+        }
+
+        DeliveryResult result = combine(submit(notification, channel, recipients), channel).join();
+        recordMetrics(notification, channel, result);
+        return result;
+    }
+
+    /**
+     * Records one delivery attempt per (recipient, channel) pair of a send. Recipients that
+     * already had attempts over the channel are treated as retries.
+     * <p>
+     * The results may refer to recipients loaded in an earlier transaction; they are matched
+     * to the notification's own recipients by id.
+     *
+     * @param notification The managed notification
+     * @param results      The outcome of each channel
+     */
+    public void record(Notification notification, Map<NotificationChannel, DeliveryResult> results) {
+        Map<Long, NotificationRecipient> recipients = new HashMap<>();
+        for (NotificationRecipient recipient : notification.getRecipients()) {
+            recipients.put(recipient.getId(), recipient);
+        }
+        for (Map.Entry<NotificationChannel, DeliveryResult> result : results.entrySet()) {
+            recordResult(notification, result.getKey(), result.getValue(), recipients);
+        }
+    }
+
+    private List<PendingBatch> submit(Notification notification,
+                                                NotificationChannel channel,
+                                                List<NotificationRecipient> recipients) {
+        if (!notificationThrottler.isEnabled()) {
+            return List.of(new PendingBatch(recipients, submitNow(notification, channel, recipients, 0)));
+        }
+
+        ThrottlingProperties.Mode mode = notificationThrottler.getMode(channel);
+        int chunkSize = notificationThrottler.getChunkSize(channel);
+        List<PendingBatch> results = new ArrayList<>();
+        for (int from = 0; from < recipients.size(); from += chunkSize) {
+            List<NotificationRecipient> chunk = recipients.subList(from, Math.min(recipients.size(), from + chunkSize));
+            long delayNanos;
+            try {
+                delayNanos = notificationThrottler.reserve(channel, notification.getSender(), chunk.size());
+            } catch (ThrottledException e) {
+                results.add(new PendingBatch(chunk, CompletableFuture.completedFuture(failed(channel, chunk, e))));
+                continue;
+            }
+
+            if (delayNanos > 0 && mode == ThrottlingProperties.Mode.QUEUE) {
+                results.add(new PendingBatch(chunk, notificationThrottler.schedule(delayNanos,
+                        () -> submitNow(notification, channel, chunk, 0))));
+            } else {
+                results.add(new PendingBatch(chunk, submitNow(notification, channel, chunk, delayNanos)));
+            }
+        }
+        return results;
+    }
+
+    private CompletableFuture<DeliveryResult> submitNow(Notification notification,
+                                                        NotificationChannel channel,
+                                                        List<NotificationRecipient> recipients,
+                                                        long delayNanos) {
+        try {
+            return deliveryExecutors.submit(channel, notification.getPriority(), () -> {
+                // BLOCK mode: hold the delivery thread until the reserved permits are due
+                if (delayNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
+                }
+                return deliver(notification, channel, recipients);
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(failed(channel, recipients, e));
+        }
+    }
+
+    private DeliveryResult deliver(Notification notification,
+                                   NotificationChannel channel,
+                                   List<NotificationRecipient> recipients) {
+        ChannelDeliveryEvent event = new ChannelDeliveryEvent();
+        event.begin();
+        DeliveryResult result;
+        try {
+            DeliveryService deliveryService = deliveryServiceFactory.getDeliveryService(channel);
+            result = notificationMetrics.time(NotificationMetrics.Stage.DELIVER, channel, notification.getPriority(),
+                    () -> deliveryService.deliver(notification, recipients));
+        } catch (Exception e) {
+            result = failed(channel, recipients, e);
+        }
+        if (event.shouldCommit()) {
+            event.notificationId = notification.getNotificationId();
+            event.channel = channel.name();
+            event.recipientCount = recipients.size();
+            event.failedCount = result.getFailures().size();
+            event.commit();
+        }
+        return result;
+    }
+
+    private void recordMetrics(Notification notification, NotificationChannel channel, DeliveryResult result) {
+        notificationMetrics.recordDeliveries(channel, notification.getType(),
+                result.getDelivered().size(), result.getFailures().size());
+    }
+
+    /**
+     * Merges the outcomes of a channel's batches. Batches that failed, were interrupted or were
+     * discarded are reported as failures for their recipients.
+     */
+    private CompletableFuture<DeliveryResult> combine(List<PendingBatch> batches, NotificationChannel channel) {
+        if (batches.size() == 1) {
+            return settle(batches.get(0), channel);
+        }
+        List<CompletableFuture<DeliveryResult>> settled = new ArrayList<>(batches.size());
+        for (PendingBatch batch : batches) {
+            settled.add(settle(batch, channel));
+        }
+        return CompletableFuture.allOf(settled.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            DeliveryResult result = new DeliveryResult();
+            for (CompletableFuture<DeliveryResult> batch : settled) {
+                result.addAll(batch.join());
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<DeliveryResult> settle(PendingBatch batch, NotificationChannel channel) {
+        return batch.result().handle((result, e) -> {
+            if (e == null) {
+                return result;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof CancellationException) {
+                return failed(channel, batch.recipients(), new RejectedExecutionException("Delivery task was discarded", cause));
+            }
+            return failed(channel, batch.recipients(), cause instanceof Exception exception ?
+                    exception : new ExecutionException(cause));
+        });
+    }
+
+    private DeliveryResult failed(NotificationChannel channel, List<NotificationRecipient> recipients, Exception e) {
+        log.error("Failed to deliver notification via {} to {} recipient(s)", channel, recipients.size(), e);
+        DeliveryResult result = new DeliveryResult();
+        for (NotificationRecipient recipient : recipients) {
+            result.addFailure(recipient, e);
+        }
+        return result;
+    }
+
+    private void recordResult(Notification notification,
+                              NotificationChannel channel,
+                              DeliveryResult result,
+                              Map<Long, NotificationRecipient> recipients) {
+        for (NotificationRecipient recipient : result.getDelivered()) {
+            recordDeliveryAttempt(notification, recipients.getOrDefault(recipient.getId(), recipient), channel, true, null);
+        }
+        for (Map.Entry<NotificationRecipient, Exception> failure : result.getFailures().entrySet()) {
+            log.error("Error sending notification to recipient: {}", failure.getKey().getRecipientId(), failure.getValue());
+            recordDeliveryAttempt(notification, recipients.getOrDefault(failure.getKey().getId(), failure.getKey()),
+                    channel, false, failure.getValue().getMessage());
+        }
+    }
+
+    /**
+     * Selects the recipients of a notification that can be reached over a channel.
+     *
+     * @param notification The notification
+     * @param channel      The channel
+     * @return recipients with an address for the channel
+     */
+    public List<NotificationRecipient> recipientsFor(Notification notification, NotificationChannel channel) {
+        List<NotificationRecipient> recipients = new ArrayList<>(notification.getRecipients().size());
+        for (NotificationRecipient recipient : notification.getRecipients()) {
+            String address = recipient.getAddress().get(channel);
+            if (address != null && !address.isEmpty()) {
+                recipients.add(recipient);
+            } else {
+                log.debug("Recipient {} has no {} address, skipping", recipient.getRecipientId(), channel);
+            }
+        }
+        return recipients;
+    }
+
+    private void recordDeliveryAttempt(Notification notification,
+                                       NotificationRecipient recipient,
+                                       NotificationChannel channel,
+                                       boolean successful,
+                                       String errorMessage) {
+        // Earlier attempts over this channel are superseded, including any retry they were waiting for
+        int previousAttempts = 0;
+        for (DeliveryAttempt previous : recipient.getDeliveryAttempts()) {
+            if (previous.getChannel() == channel) {
+                previousAttempts++;
+                previous.setNextRetryTime(null);
+            }
+        }
+
+        DeliveryAttempt attempt = new DeliveryAttempt();
+        attempt.setNotification(notification);
+        attempt.setRecipient(recipient);
+        attempt.setChannel(channel);
+        attempt.setSuccessful(successful);
+        attempt.setErrorMessage(errorMessage);
+        attempt.setRetryCount(previousAttempts);
+        if (!successful) {
+            retryService.scheduleRetry(attempt, notification);
+        }
+
+        recipient.getDeliveryAttempts().add(attempt);
+    }
+
+    private record PendingBatch(List<NotificationRecipient> recipients, CompletableFuture<DeliveryResult> result) {
+    }
+}
@@ -2,12 +2,18 @@ package com.notification.service;
 
 
 import com.notification.annotation.NotificationUserContext;
+import com.notification.config.TemplateProperties;
 import com.notification.domain.notification.NotificationChannel;
 import com.notification.domain.notification.NotificationMessage;
-import com.notification.domain.template.Template;
+import com.notification.domain.notification.NotificationRecipient;
 import com.notification.exception.NotificationMessageException;
-import com.notification.repository.TemplateRepository;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.metrics.jfr.MessageResolveEvent;
+import com.notification.metrics.jfr.NotificationEvents;
+import com.notification.metrics.jfr.TemplateRenderEvent;
+import com.notification.service.template.TemplateLookupCache;
 import com.notification.service.template.TemplateResolver;
+import com.notification.service.template.TemplateSkeleton;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.slf4j.Logger;
@@ -15,8 +21,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 @Component
 public class NotificationMessageResolver {
@@ -24,16 +36,34 @@ public class NotificationMessageResolver {
     private static final DateTimeFormatter UTC_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    private final TemplateRepository templateRepository;
+    /**
+     * Template slot holding the recipient's id.
+     */
+    public static final String RECIPIENT_ID_SLOT = "recipientId";
+
+    /**
+     * Template slot holding the recipient's address for the channel being resolved.
+     */
+    public static final String RECIPIENT_ADDRESS_SLOT = "recipientAddress";
+
+    private static final List<String> RECIPIENT_SLOTS = List.of(RECIPIENT_ID_SLOT, RECIPIENT_ADDRESS_SLOT);
+
+    private final TemplateLookupCache templateLookupCache;
     private final TemplateResolver templateResolver;
+    private final TemplateProperties templateProperties;
     private final NotificationUserContext userContext;
+    private final NotificationMetrics notificationMetrics;
 
-    public NotificationMessageResolver(TemplateRepository templateRepository,
+    public NotificationMessageResolver(TemplateLookupCache templateLookupCache,
                                        TemplateResolver templateResolver,
-                                       NotificationUserContext userContext) {
-        this.templateRepository = templateRepository;
+                                       TemplateProperties templateProperties,
+                                       NotificationUserContext userContext,
+                                       NotificationMetrics notificationMetrics) {
+        this.templateLookupCache = templateLookupCache;
         this.templateResolver = templateResolver;
+        this.templateProperties = templateProperties;
         this.userContext = userContext;
+        this.notificationMetrics = notificationMetrics;
     }
 
     /**
@@ -48,7 +78,11 @@ public class NotificationMessageResolver {
      //   logProcessingStart(notification, channel);
 
         try {
-            NotificationContent message = resolveMessageInternal(notification, channel);
+            MessageResolveEvent event = new MessageResolveEvent();
+            event.begin();
+            NotificationContent message = notificationMetrics.time(NotificationMetrics.Stage.RESOLVE, channel, null,
+                    () -> resolveMessageInternal(notification, channel, Collections.emptyMap()));
+            commit(event, null, channel, List.of(message));
         //    logProcessingSuccess(notification, channel);
             return message;
         } catch (Exception e) {
@@ -58,43 +92,143 @@ public class NotificationMessageResolver {
         }
     }
 
-    private NotificationContent resolveMessageInternal(NotificationMessage notification, NotificationChannel channel) {
-        // Step 1: Check if template is provided
-        if (notification.getTemplateName() != null && !notification.getTemplateName().isEmpty()) {
-            // Step 2: Check template repository for template_channel
-            Optional<Template> channelTemplate =
-                    templateRepository.findByNameAndChannel(
-                            notification.getTemplateName(),
-                            channel
-                    );
-
-            if (channelTemplate.isPresent()) {
-              //  logTemplateFound("channel-specific", notification.getTemplateName(), channel);
-                String content = processTemplate(
-                        channelTemplate.get().getContent(),
-                        notification.getTemplateData()
-                );
-                return new NotificationContent(content, channelTemplate.get().isHtmlEnabled());
+    /**
+     * Resolve a recipient's message for specified channel. Templates can reference the
+     * recipient through the ${recipientId} and ${recipientAddress} slots.
+     *
+     * @param recipient recipient whose message should be resolved
+     * @param channel   channel to get message for
+     * @return resolved message
+     * @throws NotificationMessageException if message cannot be resolved
+     */
+    public NotificationContent resolveMessage(NotificationRecipient recipient, NotificationChannel channel) {
+        try {
+            MessageResolveEvent event = new MessageResolveEvent();
+            event.begin();
+            NotificationContent message = notificationMetrics.time(NotificationMetrics.Stage.RESOLVE, channel, null,
+                    () -> resolveMessageInternal(recipient.getMessage(), channel, recipientSlots(recipient, channel)));
+            commit(event, recipient, channel, List.of(message));
+            return message;
+        } catch (Exception e) {
+            throw new NotificationMessageException(
+                    "Failed to resolve notification message", e);
+        }
+    }
+
+    /**
+     * Resolve the messages of a batch of recipients for specified channel. Recipients that
+     * share a template and template data are rendered once; only their recipient slots are
+     * filled in individually.
+     *
+     * @param recipients recipients whose messages should be resolved
+     * @param channel    channel to get messages for
+     * @param onFailure  called for every recipient whose message cannot be resolved
+     * @return resolved messages, in recipient order
+     */
+    public Map<NotificationRecipient, NotificationContent> resolveMessages(Collection<NotificationRecipient> recipients,
+                                                                         NotificationChannel channel,
+                                                                         BiConsumer<NotificationRecipient, Exception> onFailure) {
+        MessageResolveEvent event = new MessageResolveEvent();
+        event.begin();
+        Map<NotificationRecipient, NotificationContent> messages = notificationMetrics.time(
+                NotificationMetrics.Stage.RESOLVE, channel, null, () -> resolveAll(recipients, channel, onFailure));
+        commit(event, recipients.isEmpty() ? null : recipients.iterator().next(), channel, messages.values());
+        return messages;
+    }
+
+    private Map<NotificationRecipient, NotificationContent> resolveAll(Collection<NotificationRecipient> recipients,
+                                                                     NotificationChannel channel,
+                                                                     BiConsumer<NotificationRecipient, Exception> onFailure) {
+        Map<NotificationRecipient, NotificationContent> resolved = new LinkedHashMap<>();
+        Map<RenderKey, Optional<TemplateSkeleton>> skeletons = new HashMap<>();
+        for (NotificationRecipient recipient : recipients) {
+            try {
+                resolved.put(recipient, resolveShared(recipient, channel, skeletons));
+            } catch (Exception e) {
+                onFailure.accept(recipient, new NotificationMessageException(
+                        "Failed to resolve notification message", e));
             }
+        }
+        return resolved;
+    }
 
-            // Step 3: Check template repository for template only
-            Optional<Template> defaultTemplate =
-                    templateRepository.findByName(notification.getTemplateName());
-
-            if (defaultTemplate.isPresent()) {
-           //     logTemplateFound("default", notification.getTemplateName(), channel);
-                String content = processTemplate(
-                        defaultTemplate.get().getContent(),
-                        notification.getTemplateData()
-                );
-                return new NotificationContent(content, defaultTemplate.get().isHtmlEnabled());
+    private static void commit(MessageResolveEvent event,
+                               NotificationRecipient recipient,
+                               NotificationChannel channel,
+                               Collection<NotificationContent> messages) {
+        if (event.shouldCommit()) {
+            event.notificationId = recipient != null && recipient.getNotification() != null ?
+                    recipient.getNotification().getNotificationId() : null;
+            event.channel = channel.name();
+            event.recipientCount = messages.size();
+            for (NotificationContent message : messages) {
+                event.contentBytes += NotificationEvents.utf8Length(message.getContent());
             }
+            event.commit();
+        }
+    }
 
-            throw new NotificationMessageException(
-                    String.format("Template not found: %s for channel: %s",
-                            notification.getTemplateName(),
-                            channel)
+    private NotificationContent resolveShared(NotificationRecipient recipient,
+                                              NotificationChannel channel,
+                                              Map<RenderKey, Optional<TemplateSkeleton>> skeletons) {
+        NotificationMessage notification = recipient.getMessage();
+        Map<String, String> slots = recipientSlots(recipient, channel);
+        if (!templateProperties.isRenderOnce() || !isTemplate(notification)) {
+            return resolveMessageInternal(notification, channel, slots);
+        }
+
+        TemplateLookupCache.ResolvedTemplate template = findTemplate(notification.getTemplateName(), channel);
+        Map<String, Object> data = notification.getTemplateData() != null ?
+                notification.getTemplateData() : Collections.emptyMap();
+
+        Optional<TemplateSkeleton> skeleton = skeletons.computeIfAbsent(
+                new RenderKey(template.getContent(), data), key -> renderSkeleton(template, data, channel));
+        String content = skeleton.isPresent() ?
+                skeleton.get().fill(slots) : processTemplate(template.getContent(), data, slots, channel);
+        return new NotificationContent(content, template.isHtmlEnabled());
+    }
+
+    private Optional<TemplateSkeleton> renderSkeleton(TemplateLookupCache.ResolvedTemplate template,
+                                                      Map<String, Object> data,
+                                                      NotificationChannel channel) {
+        List<String> slots = referencedSlots(template.getContent(), data);
+        if (!TemplateSkeleton.supports(template.getContent(), slots)) {
+            return Optional.empty();
+        }
+
+        Map<String, Object> model = new HashMap<>(data);
+        for (String slot : slots) {
+            model.put(slot, TemplateSkeleton.marker(slot));
+        }
+        String rendered = render(template.getContent(), model, channel);
+        return Optional.ofNullable(TemplateSkeleton.parse(rendered, slots,
+                templateResolver.escaper(template.getContent())));
+    }
+
+    /**
+     * @return the recipient slots the template references and the template data does not already define
+     */
+    private static List<String> referencedSlots(String templateContent, Map<String, Object> data) {
+        return RECIPIENT_SLOTS.stream()
+                .filter(slot -> templateContent.contains(slot))
+                .filter(slot -> data == null || !data.containsKey(slot))
+                .toList();
+    }
+
+    private NotificationContent resolveMessageInternal(NotificationMessage notification,
+                                                       NotificationChannel channel,
+                                                       Map<String, String> slots) {
+        // Step 1: Check if template is provided
+        if (isTemplate(notification)) {
+            // Step 2: Look up the channel-specific template, falling back to the template for any channel
+            TemplateLookupCache.ResolvedTemplate template = findTemplate(notification.getTemplateName(), channel);
+            String content = processTemplate(
+                    template.getContent(),
+                    notification.getTemplateData(),
+                    slots,
+                    channel
             );
+            return new NotificationContent(content, template.isHtmlEnabled());
         }
 
         // Step 5: Check raw message
@@ -109,12 +243,57 @@ public class NotificationMessageResolver {
         );
     }
 
-    private String processTemplate(String templateContent, Map<String, Object> data) {
+    private boolean isTemplate(NotificationMessage notification) {
+        return notification.getTemplateName() != null && !notification.getTemplateName().isEmpty();
+    }
+
+    private TemplateLookupCache.ResolvedTemplate findTemplate(String templateName, NotificationChannel channel) {
+        return templateLookupCache.find(templateName, channel)
+                .orElseThrow(() -> new NotificationMessageException(
+                        String.format("Template not found: %s for channel: %s",
+                                templateName,
+                                channel)
+                ));
+    }
+
+    private Map<String, String> recipientSlots(NotificationRecipient recipient, NotificationChannel channel) {
+        Map<String, String> slots = new HashMap<>(4);
+        slots.put(RECIPIENT_ID_SLOT, recipient.getRecipientId());
+        slots.put(RECIPIENT_ADDRESS_SLOT, recipient.getAddress().getOrDefault(channel, ""));
+        return slots;
+    }
+
+    private String processTemplate(String templateContent,
+                                   Map<String, Object> data,
+                                   Map<String, String> slots,
+                                   NotificationChannel channel) {
         // Add common data
        /* data.put("timestamp", userContext.getCurrentTimestamp());
         data.put("currentUser", userContext.getCurrentUser());*/
+        List<String> referenced = slots.isEmpty() ? List.of() : referencedSlots(templateContent, data);
+        if (!referenced.isEmpty()) {
+            Map<String, Object> model = data != null ? new HashMap<>(data) : new HashMap<>();
+            for (String slot : referenced) {
+                model.put(slot, slots.get(slot));
+            }
+            data = model;
+        }
 
-        return templateResolver.processTemplate(templateContent, data);
+        return render(templateContent, data, channel);
+    }
+
+    private String render(String templateContent, Map<String, Object> data, NotificationChannel channel) {
+        TemplateRenderEvent event = new TemplateRenderEvent();
+        event.begin();
+        String rendered = notificationMetrics.time(NotificationMetrics.Stage.RENDER, channel, null,
+                () -> templateResolver.processTemplate(templateContent, data));
+        if (event.shouldCommit()) {
+            event.channel = channel.name();
+            event.templateBytes = NotificationEvents.utf8Length(templateContent);
+            event.renderedBytes = NotificationEvents.utf8Length(rendered);
+            event.commit();
+        }
+        return rendered;
     }
 
     private void logProcessingStart(NotificationMessage notification, NotificationChannel channel) {
@@ -182,6 +361,9 @@ public class NotificationMessageResolver {
         );
     }
 
+    private record RenderKey(String templateContent, Map<String, Object> data) {
+    }
+
     @Data
     @AllArgsConstructor
     public class NotificationContent {
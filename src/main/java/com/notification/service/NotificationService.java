@@ -1,52 +1,106 @@
 package com.notification.service;
 
+import com.notification.config.NotificationProperties;
 import com.notification.domain.notification.*;
-import com.notification.exception.NotificationException;
+import com.notification.metrics.DispatchLatencyMetrics;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.metrics.jfr.NotificationPersistEvent;
+import com.notification.outbox.OutboxService;
 import com.notification.queue.NotificationQueueSender;
+import com.notification.repository.DeliveryAttemptRepository;
 import com.notification.repository.NotificationRepository;
+import com.notification.service.delivery.DeliveryExecutors;
+import com.notification.service.delivery.DeliveryResult;
 import com.notification.service.builder.EmailMessage;
 import com.notification.service.builder.NotificationRequest;
 import com.notification.service.builder.Recipient;
 import com.notification.service.builder.RecipientMessage;
-import com.notification.service.delivery.DeliveryService;
-import com.notification.service.delivery.DeliveryServiceFactory;
 import jakarta.annotation.Nullable;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Persists notifications and delivers them. Only the persistence steps run in database
+ * transactions; messages are sent between them, so no connection is held while a provider
+ * is being called. Notifications sent directly from inside a transaction are held back
+ * until it commits and dropped if it rolls back, unless notification.defer-until-commit is off.
+ */
 @Service
 public class NotificationService {
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
     private final NotificationRepository notificationRepository;
-    private final DeliveryServiceFactory deliveryServiceFactory;
+    private final DeliveryAttemptRepository deliveryAttemptRepository;
+    private final NotificationDispatcher notificationDispatcher;
     private final NotificationQueueSender notificationQueueSender;
+    private final OutboxService outboxService;
+    private final DeliveryExecutors deliveryExecutors;
+    private final DispatchLatencyMetrics dispatchLatencyMetrics;
+    private final NotificationMetrics notificationMetrics;
+    private final NotificationProperties notificationProperties;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public NotificationService(NotificationRepository notificationRepository,
-                               DeliveryServiceFactory deliveryServiceFactory,
-                               @Nullable NotificationQueueSender notificationQueueSender) {
+                               DeliveryAttemptRepository deliveryAttemptRepository,
+                               NotificationDispatcher notificationDispatcher,
+                               @Nullable NotificationQueueSender notificationQueueSender,
+                               @Nullable OutboxService outboxService,
+                               DeliveryExecutors deliveryExecutors,
+                               DispatchLatencyMetrics dispatchLatencyMetrics,
+                               NotificationMetrics notificationMetrics,
+                               NotificationProperties notificationProperties,
+                               PlatformTransactionManager transactionManager) {
         this.notificationRepository = notificationRepository;
-        this.deliveryServiceFactory = deliveryServiceFactory;
+        this.deliveryAttemptRepository = deliveryAttemptRepository;
+        this.notificationDispatcher = notificationDispatcher;
         this.notificationQueueSender = notificationQueueSender;
+        this.outboxService = outboxService;
+        this.deliveryExecutors = deliveryExecutors;
+        this.dispatchLatencyMetrics = dispatchLatencyMetrics;
+        this.notificationMetrics = notificationMetrics;
+        this.notificationProperties = notificationProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Always a transaction of its own, including when called after another one has committed
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
 
     @Transactional
     public String sendNotification(NotificationRequest request) {
         request.setNotificationId(UUID.randomUUID().toString());
-        if (notificationQueueSender != null) {
-            notificationQueueSender.sendNotification(request);
+        if (isScheduledForLater(request)) {
+            // Fired by the NotificationScheduler once due
+            persist(request);
+        } else if (notificationQueueSender != null) {
+            // Persisted once here; each channel's consumers deliver over their own channel after commit
+            notificationQueueSender.sendNotification(persist(request));
+        } else if (outboxService != null) {
+            // Persisted in the caller's transaction and dispatched by the outbox workers after commit
+            outboxService.enqueue(persist(request));
+        } else if (notificationProperties.isDeferUntilCommit()) {
+            processAfterCommit(request);
         } else {
             processNotificationAsync(request);
         }
@@ -143,53 +197,326 @@ public class NotificationService {
     }
 */
 
-    @Async
+    /**
+     * Holds a notification back until the current transaction commits, so that nothing is
+     * sent for work that is rolled back.
+     */
+    private void processAfterCommit(NotificationRequest request) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                processNotificationAsync(request);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    logger.debug("Dropping notification {}: transaction rolled back", request.getNotificationId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Processes the notification on the dispatch executor rather than the common pool.
+     * Queued notifications are taken in priority order. Never throws, as it also runs after
+     * commit; a notification the executor refuses is logged, counted and fails the result.
+     */
     protected CompletableFuture<Void> processNotificationAsync(NotificationRequest request) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                processNotification(request);
-            } catch (Exception e) {
-                logger.error("Error processing notification: " + request.getNotificationId(), e);
-                updateNotificationStatus(request.getNotificationId(), NotificationStatus.FAILED);
+        long acceptedAt = System.currentTimeMillis();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            deliveryExecutors.execute(request.getPriority(), () -> {
+                CompletableFuture<Void> processed;
+                try {
+                    processed = processNotificationQueued(request);
+                } catch (Exception e) {
+                    processed = CompletableFuture.failedFuture(e);
+                }
+                // Completes on whichever thread finishes the delivery, so throttled chunks do not hold this one
+                processed.whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        dispatchLatencyMetrics.record(request.getPriority(), acceptedAt);
+                        result.complete(null);
+                        return;
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    logger.error("Error processing notification: " + request.getNotificationId(), cause);
+                    transactionTemplate.executeWithoutResult(status ->
+                            notificationRepository.findByNotificationId(request.getNotificationId())
+                                    .ifPresent(notification -> updateNotificationStatus(notification, NotificationStatus.FAILED)));
+                    result.completeExceptionally(cause);
+                });
+            }).whenComplete((ignored, e) -> {
+                // Cancelled when a DISCARD rejection dropped the task without running it
+                if (e instanceof CancellationException) {
+                    rejected(request, result, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected(request, result, e);
+        }
+        return result;
+    }
+
+    private void rejected(NotificationRequest request, CompletableFuture<Void> result, Throwable cause) {
+        logger.error("Dispatch executor refused notification {}, it will not be delivered",
+                request.getNotificationId(), cause);
+        notificationMetrics.recordDispatchRejected(request.getPriority());
+        result.completeExceptionally(cause);
+    }
+
+
+    /**
+     * Persists the notification and, unless it is scheduled for later, delivers it.
+     *
+     * @param request The notification to process
+     */
+    public void processNotification(NotificationRequest request) {
+        Notification notification = persist(request,
+                () -> transactionTemplate.execute(status -> saveNotification(request)));
+        if (notification.getStatus() != NotificationStatus.SCHEDULED) {
+            deliver(notification.getNotificationId());
+        }
+    }
+
+    /**
+     * Persists the notification and, unless it is scheduled for later, starts delivering it
+     * without waiting for the deliveries to finish.
+     *
+     * @return completed once the delivery attempts are recorded
+     */
+    private CompletableFuture<Void> processNotificationQueued(NotificationRequest request) {
+        Notification notification = persist(request,
+                () -> transactionTemplate.execute(status -> saveNotification(request)));
+        if (notification.getStatus() == NotificationStatus.SCHEDULED) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return deliverAsync(notification.getNotificationId());
+    }
+
+    /**
+     * Sends a scheduled notification that has come due down the configured path:
+     * the channel queues, the outbox, or direct delivery. The notification is moved from its
+     * claimed PENDING state to SENDING first, and skipped if it is no longer claimed.
+     *
+     * @param notificationId The notification id
+     */
+    public void dispatchScheduledNotification(String notificationId) {
+        Boolean fired = transactionTemplate.execute(status -> {
+            // Leaves the claimed state first, so that the claim cannot be released and fired again
+            if (notificationRepository.markFired(notificationId, LocalDateTime.now()) == 0) {
+                logger.info("Scheduled notification {} is no longer claimed, skipping", notificationId);
+                return false;
+            }
+            if (notificationQueueSender != null) {
+                notificationQueueSender.sendNotification(findNotification(notificationId));
+            } else if (outboxService != null) {
+                outboxService.enqueue(findNotification(notificationId));
             }
+            return true;
         });
+        if (Boolean.TRUE.equals(fired) && notificationQueueSender == null && outboxService == null) {
+            dispatchNotification(notificationId);
+        }
     }
 
+    /**
+     * Retries the (recipient, channel) pair of a failed delivery attempt. Other recipients
+     * and channels of the notification are not delivered again.
+     *
+     * @param attemptId The id of the failed attempt
+     */
+    public void retryDelivery(Long attemptId) {
+        DeliveryAttempt retry = transactionTemplate.execute(status -> deliveryAttemptRepository.findById(attemptId)
+                .filter(attempt -> {
+                    if (attempt.getNextRetryTime() == null) {
+                        // Already superseded by a newer attempt
+                        return false;
+                    }
+                    if (attempt.getNotification().getStatus() == NotificationStatus.CANCELLED) {
+                        attempt.setNextRetryTime(null);
+                        return false;
+                    }
+                    loadForDelivery(attempt.getNotification());
+                    return true;
+                })
+                .orElse(null));
+        if (retry == null) {
+            return;
+        }
 
+        Notification notification = retry.getNotification();
+        NotificationChannel channel = retry.getChannel();
+        Long recipientId = retry.getRecipient().getId();
+        List<NotificationRecipient> recipients = notification.getRecipients().stream()
+                .filter(recipient -> recipient.getId().equals(recipientId))
+                .toList();
+        logger.info("Retrying notification {} for recipient {} via {}", notification.getNotificationId(),
+                recipients.isEmpty() ? recipientId : recipients.get(0).getRecipientId(), channel);
+        DeliveryResult result = notificationDispatcher.send(notification, channel, recipients);
+
+        recordResults(notification, Map.of(channel, result), null);
+    }
+
+    /**
+     * Marks a notification as failed.
+     *
+     * @param notificationId The notification id
+     */
     @Transactional
-    public void processNotification(NotificationRequest request) {
-        Notification notification = saveNotification(request);
-       /* Notification notification = notificationRepository.findByNotificationId(notificationId)
-                .orElseThrow(() -> new IllegalArgumentException("Notification not found: " + notificationId));
-*/
-        updateNotificationStatus(notification, NotificationStatus.PROCESSING);
+    public void markFailed(String notificationId) {
+        notificationRepository.findByNotificationId(notificationId)
+                .ifPresent(notification -> updateNotificationStatus(notification, NotificationStatus.FAILED));
+    }
+
+    /**
+     * Delivers a notification that has already been persisted, e.g. one claimed from the outbox.
+     * Notifications that were already delivered are skipped.
+     *
+     * @param notificationId The notification id
+     */
+    public void dispatchNotification(String notificationId) {
+        deliver(notificationId);
+    }
+
+    /**
+     * Delivers a persisted notification over a single channel, e.g. for a channel queue consumer.
+     * The notification is left in PROCESSING; see {@link #completeIfDelivered(String)}.
+     *
+     * @param notificationId The notification id
+     * @param channel        The channel to deliver over
+     */
+    public void dispatchNotification(String notificationId, NotificationChannel channel) {
+        // Channels of a notification are consumed in parallel, so PROCESSING is expected here
+        Notification notification = startDelivery(notificationId, false);
+        if (notification == null) {
+            return;
+        }
 
+        DeliveryResult result = notificationDispatcher.send(notification, channel,
+                notificationDispatcher.recipientsFor(notification, channel));
+
+        recordResults(notification, Map.of(channel, result), null);
+    }
+
+    /**
+     * Marks a notification DELIVERED once every channel has recorded an attempt for each of
+     * its reachable recipients. The row is locked so that channels finishing concurrently
+     * cannot both miss each other's attempts.
+     *
+     * @param notificationId The notification id
+     */
+    @Transactional
+    public void completeIfDelivered(String notificationId) {
+        Notification notification = notificationRepository.findByNotificationIdForUpdate(notificationId)
+                .orElseThrow(() -> new IllegalArgumentException("Notification not found: " + notificationId));
+        if (notification.getStatus() == NotificationStatus.DELIVERED) {
+            return;
+        }
         for (NotificationChannel channel : notification.getChannels()) {
-            for (NotificationRecipient recipient : notification.getRecipients()) {
-                try {
-                    sendByChannel(channel, notification, recipient);
-                } catch (Exception e) {
-                    logger.error("Error sending notification to recipient: " + recipient.getRecipientId(), e);
-                    recordDeliveryAttempt(notification, recipient, channel, false, e.getMessage());
+            for (NotificationRecipient recipient : notificationDispatcher.recipientsFor(notification, channel)) {
+                boolean attempted = recipient.getDeliveryAttempts().stream()
+                        .anyMatch(attempt -> attempt.getChannel() == channel);
+                if (!attempted) {
+                    return;
                 }
             }
         }
-
         updateNotificationStatus(notification, NotificationStatus.DELIVERED);
     }
 
-    private void sendByChannel(NotificationChannel channel,
-                               Notification notification,
-                               NotificationRecipient recipient) {
-        try {
-            DeliveryService deliveryService = deliveryServiceFactory.getDeliveryService(channel);
-            deliveryService.deliver(notification);
-            recordDeliveryAttempt(notification, recipient, channel, true, null);
-        } catch (Exception e) {
-            throw new NotificationException("Failed to send notification via " + channel, e);
+    private void deliver(String notificationId) {
+        Notification notification = startDelivery(notificationId, true);
+        if (notification == null) {
+            return;
+        }
+
+        Map<NotificationChannel, DeliveryResult> results = notificationDispatcher.send(notification);
+
+        recordResults(notification, results, NotificationStatus.DELIVERED);
+    }
+
+    private CompletableFuture<Void> deliverAsync(String notificationId) {
+        Notification notification = startDelivery(notificationId, true);
+        if (notification == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return notificationDispatcher.sendAsync(notification)
+                .thenAccept(results -> recordResults(notification, results, NotificationStatus.DELIVERED));
+    }
+
+    /**
+     * Records the delivery attempts of a send in a transaction of its own.
+     *
+     * @param notification The notification as it was sent
+     * @param results      The outcome of each channel
+     * @param status       The status to move the notification to, or null to leave it
+     */
+    private void recordResults(Notification notification,
+                               Map<NotificationChannel, DeliveryResult> results,
+                               NotificationStatus status) {
+        NotificationChannel channel = results.size() == 1 ? results.keySet().iterator().next() : null;
+        notificationMetrics.time(NotificationMetrics.Stage.STATUS_UPDATE, channel, notification.getPriority(), () ->
+                transactionTemplate.executeWithoutResult(transaction -> {
+                    Notification current = findNotification(notification.getNotificationId());
+                    notificationDispatcher.record(current, results);
+                    if (status != null) {
+                        updateNotificationStatus(current, status);
+                    }
+                }));
+    }
+
+    /**
+     * Marks the notification PROCESSING and loads everything delivery reads from it, in a
+     * transaction that ends before anything is sent. An exclusive start locks the row and
+     * refuses a notification that another worker moved to PROCESSING less than
+     * processingTimeoutSeconds ago.
+     *
+     * @return the detached notification, or null if it was already delivered
+     * @throws IllegalStateException if the start is exclusive and another worker is delivering it
+     */
+    private Notification startDelivery(String notificationId, boolean exclusive) {
+        return notificationMetrics.time(NotificationMetrics.Stage.STATUS_UPDATE, null, null, () ->
+                transactionTemplate.execute(status -> {
+                    Notification notification = exclusive ?
+                            notificationRepository.findByNotificationIdForUpdate(notificationId)
+                                    .orElseThrow(() -> new IllegalArgumentException("Notification not found: " + notificationId)) :
+                            findNotification(notificationId);
+                    if (notification.getStatus() == NotificationStatus.DELIVERED) {
+                        logger.info("Notification {} was already delivered, skipping", notificationId);
+                        return null;
+                    }
+                    if (exclusive && isBeingProcessed(notification)) {
+                        throw new IllegalStateException("Notification " + notificationId
+                                + " is being delivered by another worker");
+                    }
+                    updateNotificationStatus(notification, NotificationStatus.PROCESSING);
+                    loadForDelivery(notification);
+                    return notification;
+                }));
+    }
+
+    private boolean isBeingProcessed(Notification notification) {
+        return notification.getStatus() == NotificationStatus.PROCESSING
+                && notification.getUpdatedAt() != null
+                && notification.getUpdatedAt().isAfter(LocalDateTime.now()
+                .minusSeconds(notificationProperties.getProcessingTimeoutSeconds()));
+    }
+
+    private static void loadForDelivery(Notification notification) {
+        Hibernate.initialize(notification);
+        for (NotificationRecipient recipient : notification.getRecipients()) {
+            Hibernate.initialize(recipient.getAddress());
         }
     }
 
+    private Notification findNotification(String notificationId) {
+        return notificationRepository.findByNotificationId(notificationId)
+                .orElseThrow(() -> new IllegalArgumentException("Notification not found: " + notificationId));
+    }
+
     private Notification saveNotification(NotificationRequest request) {
         Notification entity = new Notification();
         entity.setNotificationId(request.getNotificationId());
@@ -197,9 +524,10 @@ public class NotificationService {
         entity.setChannels(request.getChannels());
         entity.setSender(request.getSender());
         entity.setScheduledTime(request.getScheduledTime());
-        entity.setStatus(request.getScheduledTime() != null ?
+        entity.setStatus(isScheduledForLater(request) ?
                 NotificationStatus.SCHEDULED : NotificationStatus.PENDING);
         entity.setPriority(request.getPriority());
+        entity.setMaxRetries(request.getMaxRetryAttempt());
 
 
         // Save recipients
@@ -209,9 +537,11 @@ public class NotificationService {
             recipientEntity.setNotification(entity);
             recipientEntity.setAddress(recipient.getAddress());
 
-            // Save message
-            if (recipient.getMessage() != null) {
-                NotificationMessage messageEntity = createMessageEntity(recipient.getMessage());
+            // Save message, falling back to the group's default message
+            RecipientMessage message = recipient.getMessage() != null ?
+                    recipient.getMessage() : request.getDefaultMessage();
+            if (message != null) {
+                NotificationMessage messageEntity = createMessageEntity(message);
                 recipientEntity.setMessage(messageEntity);
             }
 
@@ -222,6 +552,28 @@ public class NotificationService {
         return notificationRepository.save(entity);
     }
 
+    private Notification persist(NotificationRequest request) {
+        return persist(request, () -> saveNotification(request));
+    }
+
+    private Notification persist(NotificationRequest request, Supplier<Notification> save) {
+        NotificationPersistEvent event = new NotificationPersistEvent();
+        event.begin();
+        Notification notification = notificationMetrics.time(NotificationMetrics.Stage.PERSIST, null,
+                request.getPriority(), save);
+        if (event.shouldCommit()) {
+            event.notificationId = notification.getNotificationId();
+            event.priority = String.valueOf(notification.getPriority());
+            event.recipientCount = notification.getRecipients().size();
+            event.commit();
+        }
+        return notification;
+    }
+
+    private boolean isScheduledForLater(NotificationRequest request) {
+        return request.getScheduledTime() != null && request.getScheduledTime().isAfter(LocalDateTime.now());
+    }
+
     private NotificationMessage createMessageEntity(RecipientMessage message) {
         NotificationMessage entity = new NotificationMessage();
 
@@ -241,25 +593,12 @@ public class NotificationService {
         return entity;
     }
 
-    private void recordDeliveryAttempt(Notification notification,
-                                       NotificationRecipient recipient,
-                                       NotificationChannel channel,
-                                       boolean successful,
-                                       String errorMessage) {
-        DeliveryAttempt attempt = new DeliveryAttempt();
-        attempt.setNotification(notification);
-        attempt.setRecipient(recipient);
-        attempt.setChannel(channel);
-        attempt.setSuccessful(successful);
-        attempt.setErrorMessage(errorMessage);
-
-        recipient.getDeliveryAttempts().add(attempt);
-    }
-
     @Transactional
     protected void updateNotificationStatus(Notification notification, NotificationStatus status) {
         notification.setStatus(status);
+        notification.setUpdatedAt(LocalDateTime.now());
         notificationRepository.save(notification);
+        notificationMetrics.recordStatus(status, notification.getType(), notification.getPriority());
     }
 
     @Transactional
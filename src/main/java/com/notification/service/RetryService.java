@@ -1,84 +1,174 @@
 package com.notification.service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.notification.config.RetryProperties;
+import com.notification.domain.notification.DeliveryAttempt;
 import com.notification.domain.notification.Notification;
 import com.notification.domain.notification.NotificationPriority;
+import com.notification.repository.DeliveryAttemptRepository;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service to handle notification retry logic.
+ * <p>
+ * Retries are tracked per (recipient, channel) pair on the failed DeliveryAttempt: its
+ * next_retry_time is set when it fails and cleared once the pair is attempted again.
+ * Publishes {@code notification.retry.backlog} (attempts waiting for a retry) and
+ * {@code notification.retry.overdue.seconds} (how late the most overdue retry is).
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class RetryService {
 
-    /*private final RetryProperties retryProperties;
-    private final Random random = new Random();
-    
-    *//**
-     * Calculate the next retry time for a failed notification.
-     * 
-     * @param notification The failed notification
+    private final RetryProperties retryProperties;
+    private final DeliveryAttemptRepository deliveryAttemptRepository;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong overdueSeconds = new AtomicLong();
+
+    public RetryService(RetryProperties retryProperties,
+                        DeliveryAttemptRepository deliveryAttemptRepository,
+                        MeterRegistry meterRegistry) {
+        this.retryProperties = retryProperties;
+        this.deliveryAttemptRepository = deliveryAttemptRepository;
+
+        Gauge.builder("notification.retry.backlog", backlog, AtomicLong::get)
+                .description("Failed deliveries waiting for a retry")
+                .register(meterRegistry);
+        Gauge.builder("notification.retry.overdue.seconds", overdueSeconds, AtomicLong::get)
+                .description("How long the most overdue retry has been due")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calculate the next retry time for a failed delivery attempt.
+     *
+     * @param attempt  The failed attempt
+     * @param priority The notification priority
      * @return The next retry time
-     *//*
-    public LocalDateTime calculateNextRetryTime(Notification notification) {
+     */
+    public LocalDateTime calculateNextRetryTime(DeliveryAttempt attempt, NotificationPriority priority) {
         // Base delay in seconds
-        int baseDelay = retryProperties.getBaseDelaySeconds();
-        
+        double delay = retryProperties.getBaseDelaySeconds();
+
         // Apply exponential backoff if configured
         if (retryProperties.isExponentialBackoff()) {
-            double attemptFactor = Math.pow(notification.getAttemptCount(), 
-                    retryProperties.getBackoffMultiplier());
-            baseDelay = (int) (baseDelay * attemptFactor);
+            delay *= Math.pow(retryProperties.getBackoffMultiplier(), retryCount(attempt));
         }
-        
+
         // Priority-based adjustment
-        if (notification.getPriority() != null) {
-            if (notification.getPriority() == NotificationPriority.HIGH) {
-                // Reduce delay for high priority
-                baseDelay = Math.max(retryProperties.getMinDelaySeconds(), baseDelay / 2);
-            } else if (notification.getPriority() == NotificationPriority.LOW) {
-                // Increase delay for low priority
-                baseDelay = Math.min(retryProperties.getMinDelaySeconds() * 2, baseDelay * 2);
-            }
+        if (priority == NotificationPriority.HIGH || priority == NotificationPriority.URGENT) {
+            delay /= 2;
+        } else if (priority == NotificationPriority.LOW) {
+            delay *= 2;
         }
-        
+
         // Add jitter to prevent thundering herd
         if (retryProperties.isAddJitter()) {
             // +/- 20% random jitter
-            double jitterPercent = 0.2;
-            double jitterFactor = 1.0 - jitterPercent + (random.nextDouble() * jitterPercent * 2);
-            baseDelay = (int) (baseDelay * jitterFactor);
+            delay *= 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
         }
-        
+
         // Ensure delay is within configured min/max bounds
-        baseDelay = Math.max(retryProperties.getMinDelaySeconds(), baseDelay);
-        baseDelay = Math.min(retryProperties.getMaxDelaySeconds(), baseDelay);
-        
-        return LocalDateTime.now().plusSeconds(baseDelay);
+        long seconds = (long) Math.min(retryProperties.getMaxDelaySeconds(),
+                Math.max(retryProperties.getMinDelaySeconds(), delay));
+
+        return LocalDateTime.now().plusSeconds(seconds);
     }
-    
-    *//**
-     * Determine if a notification has reached its maximum retry attempts.
-     * 
-     * @param notification The notification to check
+
+    /**
+     * Determine if a delivery has reached its maximum retry attempts.
+     *
+     * @param attempt      The failed attempt
+     * @param notification The notification, whose maxRetries overrides the configured maximum
      * @return true if max attempts reached, false otherwise
-     *//*
-    public boolean hasReachedMaxAttempts(Notification notification) {
-        int maxAttempts = notification.getMaxAttempts();
-        if (maxAttempts <= 0) {
-            // Use default from config if not specified in notification
-            maxAttempts = retryProperties.getMaxAttempts();
+     */
+    public boolean hasReachedMaxAttempts(DeliveryAttempt attempt, Notification notification) {
+        int maxAttempts = notification.getMaxRetries() != null ?
+                notification.getMaxRetries() : retryProperties.getMaxAttempts();
+        return retryCount(attempt) >= maxAttempts;
+    }
+
+    /**
+     * Schedules a retry for a failed attempt unless retries are disabled or exhausted.
+     *
+     * @param attempt      The failed attempt
+     * @param notification The notification
+     */
+    public void scheduleRetry(DeliveryAttempt attempt, Notification notification) {
+        if (!retryProperties.isEnabled() || attempt.isSuccessful()) {
+            return;
+        }
+        if (hasReachedMaxAttempts(attempt, notification)) {
+            log.warn("Giving up on notification {} for recipient {} via {} after {} retries",
+                    notification.getNotificationId(), attempt.getRecipient().getRecipientId(),
+                    attempt.getChannel(), retryCount(attempt));
+            return;
         }
-        
-        return notification.getAttemptCount() >= maxAttempts;
-    }*/
-} 
\ No newline at end of file
+        attempt.setNextRetryTime(calculateNextRetryTime(attempt, notification.getPriority()));
+    }
+
+    /**
+     * Claims failed attempts whose retry is due. Rows locked by other nodes are skipped, and
+     * claimed attempts are pushed back by the lease so that no other node picks them up while
+     * they are retried. If the node dies first, they become due again once the lease expires.
+     *
+     * @param limit Maximum number of attempts to claim
+     * @return ids of the claimed attempts
+     */
+    @Transactional
+    public List<Long> claimDueRetries(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DeliveryAttempt> attempts = deliveryAttemptRepository.lockDueRetries(now, limit);
+        for (DeliveryAttempt attempt : attempts) {
+            attempt.setNextRetryTime(now.plusSeconds(retryProperties.getLeaseTimeoutSeconds()));
+        }
+        return attempts.stream().map(DeliveryAttempt::getId).toList();
+    }
+
+    /**
+     * Makes claimed attempts due again right away, e.g. because the executor refused them.
+     *
+     * @param attemptIds ids of the claimed attempts
+     */
+    @Transactional
+    public void releaseRetries(Collection<Long> attemptIds) {
+        if (attemptIds.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (DeliveryAttempt attempt : deliveryAttemptRepository.findAllById(attemptIds)) {
+            // Attempts superseded since they were claimed have no retry left to release
+            if (attempt.getNextRetryTime() != null) {
+                attempt.setNextRetryTime(now);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the retry backlog gauges.
+     */
+    @Transactional(readOnly = true)
+    public void refreshMetrics() {
+        backlog.set(deliveryAttemptRepository.countByNextRetryTimeIsNotNull());
+        LocalDateTime earliest = deliveryAttemptRepository.findEarliestNextRetryTime();
+        overdueSeconds.set(earliest != null ?
+                Math.max(0, Duration.between(earliest, LocalDateTime.now()).toSeconds()) : 0);
+    }
+
+    private static int retryCount(DeliveryAttempt attempt) {
+        return attempt.getRetryCount() != null ? attempt.getRetryCount() : 0;
+    }
+}
@@ -0,0 +1,336 @@
+package com.notification.service.delivery;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.notification.config.DeliveryExecutorProperties;
+import com.notification.config.DeliveryExecutorProperties.Pool;
+import com.notification.config.DeliveryExecutorProperties.RejectionPolicy;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.service.delivery.PriorityTaskQueue.PrioritizedTask;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Owns the executors notification delivery runs on: one dispatch pool for notifications
+ * processed asynchronously and one bounded pool per channel, so blocking transports
+ * never run on the JVM-wide common pool and a slow channel cannot starve the others.
+ * <p>
+ * Queued tasks are ordered by priority with starvation protection, see {@link PriorityTaskQueue}.
+ * Every pool publishes {@code notification.executor.active}, {@code notification.executor.queued}
+ * and {@code notification.executor.rejected}, tagged with the pool name.
+ */
+@Component
+@Slf4j
+public class DeliveryExecutors implements DisposableBean {
+
+    private static final String DISPATCH_POOL = "dispatch";
+
+    private final DeliveryExecutorProperties properties;
+    private final ExecutorService dispatchExecutor;
+    private final Map<NotificationChannel, ExecutorService> channelExecutors = new EnumMap<>(NotificationChannel.class);
+
+    public DeliveryExecutors(DeliveryExecutorProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        boolean virtualThreads = properties.isVirtualThreads() && virtualThreadsAvailable();
+        if (properties.isVirtualThreads() && !virtualThreads) {
+            log.warn("Virtual threads were requested but are not available on Java {}, using platform thread pools",
+                    Runtime.version().feature());
+        }
+
+        this.dispatchExecutor = create(DISPATCH_POOL, properties.getDispatch(), virtualThreads, meterRegistry);
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            channelExecutors.put(channel,
+                    create(channel.name().toLowerCase(), properties.getPool(channel), virtualThreads, meterRegistry));
+        }
+    }
+
+    /**
+     * @return the executor that processes notifications handed off by NotificationService
+     */
+    public ExecutorService getDispatchExecutor() {
+        return dispatchExecutor;
+    }
+
+    /**
+     * Returns the executor that runs deliveries for a channel.
+     *
+     * @param channel The delivery channel
+     * @return the channel's executor
+     */
+    public ExecutorService getChannelExecutor(NotificationChannel channel) {
+        return channelExecutors.get(channel);
+    }
+
+    /**
+     * Runs a task on the dispatch executor, ordered by the given priority.
+     *
+     * @param priority The notification priority
+     * @param task     The task to run
+     * @return completed once the task has run, or cancelled if a DISCARD rejection dropped it
+     * @throws RejectedExecutionException if the executor is shut down or an ABORT rejection refused the task
+     */
+    public CompletableFuture<Void> execute(NotificationPriority priority, Runnable task) {
+        PrioritizedTask<Void> prioritized = prioritized(priority, () -> {
+            task.run();
+            return null;
+        });
+        dispatchExecutor.execute(prioritized);
+        return prioritized.getCompletion();
+    }
+
+    /**
+     * Runs a task on the dispatch executor if it can take it now. Unlike
+     * {@link #execute(NotificationPriority, Runnable)}, a saturated executor refuses the task
+     * whatever its rejection policy, so it never runs on the caller's thread and is never dropped.
+     *
+     * @param priority The notification priority
+     * @param task     The task to run
+     * @return completed once the task has run
+     * @throws RejectedExecutionException if the executor is saturated or shut down
+     */
+    public CompletableFuture<Void> tryExecute(NotificationPriority priority, Runnable task) {
+        PrioritizedTask<Void> prioritized = prioritized(priority, () -> {
+            task.run();
+            return null;
+        });
+        prioritized.refuseWhenSaturated();
+        dispatchExecutor.execute(prioritized);
+        return prioritized.getCompletion();
+    }
+
+    /**
+     * Submits a task to a channel's executor, ordered by the given priority.
+     *
+     * @param channel  The delivery channel
+     * @param priority The notification priority
+     * @param task     The task to run
+     * @return the task's result
+     */
+    public <T> CompletableFuture<T> submit(NotificationChannel channel, NotificationPriority priority, Callable<T> task) {
+        PrioritizedTask<T> prioritized = prioritized(priority, task);
+        channelExecutors.get(channel).execute(prioritized);
+        return prioritized.getCompletion();
+    }
+
+    private <T> PrioritizedTask<T> prioritized(NotificationPriority priority, Callable<T> task) {
+        return new PrioritizedTask<>(task, priority != null ? priority : NotificationPriority.NORMAL,
+                TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMs(priority)));
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        dispatchExecutor.shutdown();
+        channelExecutors.values().forEach(ExecutorService::shutdown);
+
+        dispatchExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        for (ExecutorService executor : channelExecutors.values()) {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private ExecutorService create(String name, Pool pool, boolean virtualThreads, MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("notification.executor.rejected")
+                .description("Tasks rejected because the executor was saturated")
+                .tag("pool", name)
+                .register(meterRegistry);
+
+        if (virtualThreads) {
+            BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor(
+                    newVirtualThreadPerTaskExecutor(), pool, rejected);
+            registerGauges(name, executor, BoundedVirtualThreadExecutor::getActiveCount,
+                    BoundedVirtualThreadExecutor::getQueuedCount, meterRegistry);
+            return executor;
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                pool.getCorePoolSize(),
+                Math.max(pool.getCorePoolSize(), pool.getMaxPoolSize()),
+                pool.getKeepAliveSeconds(), TimeUnit.SECONDS,
+                new PriorityTaskQueue(pool.getQueueCapacity(), properties.getMaxWaitMs(NotificationPriority.NORMAL)),
+                new CustomizableThreadFactory("notification-" + name + "-"),
+                new CountingRejectionHandler(pool.getRejectionPolicy(), rejected));
+        executor.allowCoreThreadTimeOut(true);
+        registerGauges(name, executor, ThreadPoolExecutor::getActiveCount,
+                e -> e.getQueue().size(), meterRegistry);
+        return executor;
+    }
+
+    private static <T> void registerGauges(String name, T executor,
+                                           ToDoubleFunction<T> active,
+                                           ToDoubleFunction<T> queued,
+                                           MeterRegistry meterRegistry) {
+        Gauge.builder("notification.executor.active", executor, active)
+                .description("Tasks currently running")
+                .tag("pool", name)
+                .register(meterRegistry);
+        Gauge.builder("notification.executor.queued", executor, queued)
+                .description("Tasks waiting for a thread")
+                .tag("pool", name)
+                .register(meterRegistry);
+    }
+
+    private static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    private static void reject(Runnable task, RejectionPolicy policy, Counter rejected, String reason) {
+        rejected.increment();
+        if (task instanceof PrioritizedTask<?> prioritized && prioritized.isRefusedWhenSaturated()) {
+            throw new RejectedExecutionException(reason);
+        }
+        switch (policy) {
+            case CALLER_RUNS -> task.run();
+            case ABORT -> throw new RejectedExecutionException(reason);
+            case DISCARD -> {
+                // Release anyone waiting on the dropped task's result
+                if (task instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+                log.warn("Discarding delivery task: {}", reason);
+            }
+        }
+    }
+
+    /**
+     * Applies the configured rejection policy to a saturated thread pool and counts the rejection.
+     */
+    private static class CountingRejectionHandler implements RejectedExecutionHandler {
+        private final RejectionPolicy policy;
+        private final Counter rejected;
+
+        CountingRejectionHandler(RejectionPolicy policy, Counter rejected) {
+            this.policy = policy;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                rejected.increment();
+                throw new RejectedExecutionException("Delivery executor has been shut down");
+            }
+            reject(task, policy, rejected, "Delivery executor is saturated");
+        }
+    }
+
+    /**
+     * Starts a virtual thread per task, but lets at most maxPoolSize tasks run at once
+     * and at most queueCapacity more wait for a permit, so a burst cannot open an
+     * unbounded number of connections to a transport.
+     */
+    private static class BoundedVirtualThreadExecutor extends AbstractExecutorService {
+        private final ExecutorService delegate;
+        private final Semaphore running;
+        private final int maxPending;
+        private final RejectionPolicy policy;
+        private final Counter rejected;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+
+        BoundedVirtualThreadExecutor(ExecutorService delegate, Pool pool, Counter rejected) {
+            this.delegate = delegate;
+            this.running = new Semaphore(pool.getMaxPoolSize());
+            this.maxPending = pool.getMaxPoolSize() + pool.getQueueCapacity();
+            this.policy = pool.getRejectionPolicy();
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (delegate.isShutdown()) {
+                rejected.increment();
+                throw new RejectedExecutionException("Delivery executor has been shut down");
+            }
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                reject(task, policy, rejected, "Delivery executor is saturated");
+                return;
+            }
+            delegate.execute(() -> {
+                try {
+                    running.acquireUninterruptibly();
+                    active.incrementAndGet();
+                    try {
+                        task.run();
+                    } finally {
+                        active.decrementAndGet();
+                        running.release();
+                    }
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        }
+
+        int getActiveCount() {
+            return active.get();
+        }
+
+        int getQueuedCount() {
+            return Math.max(0, pending.get() - active.get());
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
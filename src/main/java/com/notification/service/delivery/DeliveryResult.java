@@ -0,0 +1,36 @@
+package com.notification.service.delivery;
+
+import com.notification.domain.notification.NotificationRecipient;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-recipient outcome of a batch delivery.
+ */
+@Getter
+public class DeliveryResult {
+
+    private final List<NotificationRecipient> delivered = new ArrayList<>();
+    private final Map<NotificationRecipient, Exception> failures = new LinkedHashMap<>();
+
+    public void addSuccess(NotificationRecipient recipient) {
+        delivered.add(recipient);
+    }
+
+    public void addFailure(NotificationRecipient recipient, Exception error) {
+        failures.put(recipient, error);
+    }
+
+    public void addAll(DeliveryResult other) {
+        delivered.addAll(other.delivered);
+        failures.putAll(other.failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
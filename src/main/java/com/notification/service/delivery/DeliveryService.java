@@ -2,12 +2,16 @@ package com.notification.service.delivery;
 
 import com.notification.domain.notification.NotificationChannel;
 import com.notification.domain.notification.Notification;
+import com.notification.domain.notification.NotificationRecipient;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Interface for services that deliver notifications through different channels.
  */
 public interface DeliveryService {
-    
+
     /**
      * Checks if this delivery service can deliver
      *
@@ -18,10 +22,48 @@ public interface DeliveryService {
     NotificationChannel getChannel();
 
     /**
-     * Delivers a notification
-     * 
+     * Delivers a notification to all of its recipients
+     *
+     * @param notification The notification to deliver
+     * @throws DeliveryException if delivery to any recipient failed
+     */
+    default void deliver(Notification notification) {
+        DeliveryResult result = deliver(notification, notification.getRecipients());
+        if (result.hasFailures()) {
+            Map.Entry<NotificationRecipient, Exception> failure = result.getFailures().entrySet().iterator().next();
+            throw new DeliveryException("Failed to deliver " + getChannel() + " notification to "
+                    + result.getFailures().size() + " recipient(s)", failure.getValue());
+        }
+    }
+
+    /**
+     * Delivers a notification to a single recipient
+     *
+     * @param notification The notification to deliver
+     * @param recipient    The recipient to deliver to
+     * @throws DeliveryException if delivery failed
+     */
+    void deliver(Notification notification, NotificationRecipient recipient);
+
+    /**
+     * Delivers a notification to a batch of recipients. Each recipient is delivered
+     * to exactly once and failures are reported per recipient instead of aborting the batch.
+     * Implementations can override this to use provider bulk APIs.
+     *
      * @param notification The notification to deliver
-     * @return true if delivery was successful, false otherwise
+     * @param recipients   The recipients to deliver to
+     * @return the per-recipient outcome
      */
-    void deliver(Notification notification);
-}
\ No newline at end of file
+    default DeliveryResult deliver(Notification notification, Collection<NotificationRecipient> recipients) {
+        DeliveryResult result = new DeliveryResult();
+        for (NotificationRecipient recipient : recipients) {
+            try {
+                deliver(notification, recipient);
+                result.addSuccess(recipient);
+            } catch (Exception e) {
+                result.addFailure(recipient, e);
+            }
+        }
+        return result;
+    }
+}
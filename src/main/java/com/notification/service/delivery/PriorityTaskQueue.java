@@ -0,0 +1,131 @@
+package com.notification.service.delivery;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.notification.domain.notification.NotificationPriority;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Work queue for the delivery thread pools that hands out tasks earliest-deadline-first.
+ * A task's deadline is its enqueue time plus the maximum wait of its priority, so URGENT
+ * work overtakes a LOW backlog, while a LOW task that has waited its full allowance is
+ * no longer overtaken and cannot starve.
+ * <p>
+ * Offers check the capacity and insert under one lock. Only offers grow the queue, so the
+ * capacity holds exactly; takes and removals stay lock-free with respect to it.
+ */
+@Slf4j
+class PriorityTaskQueue extends PriorityBlockingQueue<Runnable> {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final int capacity;
+    private final long defaultMaxWaitNanos;
+    private final ReentrantLock offerLock = new ReentrantLock();
+
+    PriorityTaskQueue(int capacity, long defaultMaxWaitMs) {
+        super(Math.min(Math.max(capacity, 1), 1024));
+        this.capacity = capacity;
+        this.defaultMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(defaultMaxWaitMs);
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        Runnable prioritized = task instanceof PrioritizedTask<?> ? task : new PrioritizedTask<>(task, defaultMaxWaitNanos);
+        offerLock.lock();
+        try {
+            return size() < capacity && super.offer(prioritized);
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+
+    /**
+     * A task ordered by its deadline, ties broken by submission order. Its outcome, including
+     * cancellation by a DISCARD rejection, is mirrored to {@link #getCompletion()}. A plain
+     * Runnable wrapped by the queue has no caller holding its completion, so its failure is logged.
+     */
+    static class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+        private final NotificationPriority priority;
+        private final long deadline;
+        private final long sequence = SEQUENCE.incrementAndGet();
+        private final CompletableFuture<T> completion = new CompletableFuture<>();
+        private final boolean unobserved;
+        private volatile boolean refusedWhenSaturated;
+
+        PrioritizedTask(Callable<T> callable, NotificationPriority priority, long maxWaitNanos) {
+            super(callable);
+            this.priority = priority;
+            this.deadline = System.nanoTime() + maxWaitNanos;
+            this.unobserved = false;
+        }
+
+        private PrioritizedTask(Runnable runnable, long maxWaitNanos) {
+            super(runnable, null);
+            this.priority = NotificationPriority.NORMAL;
+            this.deadline = System.nanoTime() + maxWaitNanos;
+            this.unobserved = true;
+        }
+
+        NotificationPriority getPriority() {
+            return priority;
+        }
+
+        CompletableFuture<T> getCompletion() {
+            return completion;
+        }
+
+        /**
+         * Makes a saturated executor refuse this task instead of applying its rejection policy.
+         */
+        void refuseWhenSaturated() {
+            refusedWhenSaturated = true;
+        }
+
+        boolean isRefusedWhenSaturated() {
+            return refusedWhenSaturated;
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                completion.cancel(false);
+                return;
+            }
+            try {
+                completion.complete(get());
+            } catch (ExecutionException e) {
+                if (unobserved) {
+                    log.error("Delivery task failed", e.getCause());
+                }
+                completion.completeExceptionally(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                completion.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            // Deadlines are nanoTime values, compare by difference to stay correct across overflow
+            long difference = deadline - other.deadline;
+            if (difference != 0) {
+                return difference < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
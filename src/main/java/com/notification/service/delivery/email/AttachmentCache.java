@@ -0,0 +1,255 @@
+package com.notification.service.delivery.email;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.config.EmailProperties;
+import com.notification.service.delivery.DeliveryException;
+import jakarta.activation.DataHandler;
+import jakarta.activation.DataSource;
+import jakarta.activation.FileTypeMap;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.PreencodedMimeBodyPart;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Keeps attachments base64-encoded and ready to be written into messages, keyed by the
+ * SHA-256 of their content, so a file sent to many recipients is read and encoded once.
+ * <p>
+ * Files are read through memory-mapped buffers rather than copied onto the heap. Encoded
+ * content above attachmentSpoolThresholdKb is written to a temporary file and mapped as well;
+ * the file is removed right away and the mapping is released once the entry is evicted and
+ * no message refers to it any more. Files are looked up by path, size and modification time,
+ * so a changed file is hashed and encoded again.
+ */
+@Component
+public class AttachmentCache {
+
+    private static final int ENCODE_CHUNK = 57 * 1024;
+    // A whole number of encode chunks, so no chunk straddles two regions
+    private static final int MAX_MAPPED_REGION = ENCODE_CHUNK * 1024;
+    private static final Base64.Encoder ENCODER = Base64.getMimeEncoder();
+
+    private final EmailProperties emailProperties;
+    private final Cache<FileKey, String> hashes;
+    private final Cache<String, ByteBuffer> encoded;
+
+    public AttachmentCache(EmailProperties emailProperties) {
+        this.emailProperties = emailProperties;
+        this.hashes = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+        this.encoded = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, emailProperties.getAttachmentCacheMaxMb()) * 1024L * 1024L)
+                .weigher((String hash, ByteBuffer content) -> content.capacity())
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+    }
+
+    /**
+     * Resolves an attachment to its encoded content.
+     *
+     * @param attachmentUrl Path of the file to attach
+     * @return the attachment, which can create any number of body parts
+     * @throws DeliveryException if the file cannot be read or exceeds maxAttachmentSizeMb
+     */
+    public Attachment resolve(String attachmentUrl) {
+        Path path = Path.of(attachmentUrl);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long maxSize = emailProperties.getMaxAttachmentSizeMb() * 1024L * 1024L;
+            if (attributes.size() > maxSize) {
+                throw new DeliveryException("Attachment " + path.getFileName() + " exceeds "
+                        + emailProperties.getMaxAttachmentSizeMb() + " MB");
+            }
+
+            FileKey key = new FileKey(path.toAbsolutePath().normalize(), attributes.size(),
+                    attributes.lastModifiedTime().toMillis());
+            String hash = hashes.getIfPresent(key);
+            if (hash == null) {
+                hash = hash(path);
+                hashes.put(key, hash);
+            }
+            ByteBuffer content = encoded.get(hash, ignored -> encode(path));
+            String fileName = path.getFileName().toString();
+            return new Attachment(fileName, FileTypeMap.getDefaultFileTypeMap().getContentType(fileName), content);
+        } catch (DeliveryException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            throw new DeliveryException("Failed to read attachment " + attachmentUrl, e);
+        }
+    }
+
+    private static String hash(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAX_MAPPED_REGION) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAX_MAPPED_REGION, size - position)));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private ByteBuffer encode(Path path) {
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = source.size();
+            long encodedSize = (size + 2) / 3 * 4 + (size / 57 + 1) * 2;
+            if (encodedSize <= emailProperties.getAttachmentSpoolThresholdKb() * 1024L) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) encodedSize);
+                encodeTo(source, buffer);
+                return ByteBuffer.wrap(buffer.toByteArray()).asReadOnlyBuffer();
+            }
+            return spool(source);
+        } catch (IOException e) {
+            throw new DeliveryException("Failed to encode attachment " + path.getFileName(), e);
+        }
+    }
+
+    private static MappedByteBuffer spool(FileChannel source) throws IOException {
+        Path spoolFile = Files.createTempFile("notification-attachment-", ".b64");
+        try (FileChannel target = FileChannel.open(spoolFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(target);
+            encodeTo(source, out);
+            out.flush();
+            return target.map(FileChannel.MapMode.READ_ONLY, 0, target.size());
+        } finally {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException e) {
+                // Mapped files cannot be deleted on some platforms
+                spoolFile.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Encodes in chunks of whole 57-byte input lines, so every chunk ends on a line break.
+     */
+    private static void encodeTo(FileChannel source, OutputStream out) throws IOException {
+        long size = source.size();
+        byte[] chunk = new byte[ENCODE_CHUNK];
+        byte[] lineBreak = {'\r', '\n'};
+        for (long regionStart = 0; regionStart < size; regionStart += MAX_MAPPED_REGION) {
+            MappedByteBuffer region = source.map(FileChannel.MapMode.READ_ONLY, regionStart,
+                    Math.min(MAX_MAPPED_REGION, size - regionStart));
+            while (region.hasRemaining()) {
+                int length = Math.min(chunk.length, region.remaining());
+                region.get(chunk, 0, length);
+                byte[] encodedChunk = ENCODER.encode(length == chunk.length ? chunk : Arrays.copyOf(chunk, length));
+                out.write(encodedChunk);
+                out.write(lineBreak);
+            }
+        }
+    }
+
+    private record FileKey(Path path, long size, long lastModified) {
+    }
+
+    /**
+     * An encoded attachment. Body parts created from it share the encoded content.
+     */
+    public static final class Attachment {
+
+        private final String fileName;
+        private final String contentType;
+        private final ByteBuffer content;
+
+        private Attachment(String fileName, String contentType, ByteBuffer content) {
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        /**
+         * @return a new body part for one message, written without re-encoding
+         * @throws MessagingException if the part cannot be created
+         */
+        public MimeBodyPart toBodyPart() throws MessagingException {
+            MimeBodyPart part = new PreencodedMimeBodyPart("base64");
+            part.setDataHandler(new DataHandler(new EncodedDataSource(fileName, contentType, content)));
+            part.setDisposition(Part.ATTACHMENT);
+            part.setFileName(fileName);
+            return part;
+        }
+    }
+
+    private record EncodedDataSource(String name, String contentType, ByteBuffer content) implements DataSource {
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(content.duplicate());
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("Attachment content is read-only");
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -7,7 +7,11 @@ import com.notification.domain.notification.NotificationMessage;
 import com.notification.domain.notification.NotificationRecipient;
 import com.notification.service.NotificationMessageResolver;
 import com.notification.service.delivery.DeliveryException;
+import com.notification.service.delivery.DeliveryResult;
 import com.notification.service.delivery.DeliveryService;
+import jakarta.mail.Address;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,9 +19,13 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -31,7 +39,10 @@ public class EmailDeliveryService implements DeliveryService {
     private final JavaMailSender mailSender;
     private final EmailProperties emailProperties;
     private final NotificationMessageResolver notificationMessageResolver;
+    private final EmailDomainDispatcher emailDomainDispatcher;
+    private final AttachmentCache attachmentCache;
 
+    private static final String UNDISCLOSED_RECIPIENTS = "undisclosed-recipients:;";
 
     @Override
     public NotificationChannel getChannel() {
@@ -39,70 +50,227 @@ public class EmailDeliveryService implements DeliveryService {
     }
 
     @Override
-    public void deliver(Notification notification) throws DeliveryException {
+    public void deliver(Notification notification, NotificationRecipient notificationRecipient) throws DeliveryException {
         if (!isSupported()) {
             throw new DeliveryException("Email delivery is not configured properly");
         }
 
+        NotificationMessageResolver.NotificationContent notificationContent;
         try {
-            String fromAddress = emailProperties.getFromAddress();
-            for (NotificationRecipient notificationRecipient : notification.getRecipients()) {
-                String recipient = notificationRecipient.getAddress().getOrDefault(getChannel(), "");
-                if (!recipient.isEmpty()) {
-                    NotificationMessage notificationMessage = notificationRecipient.getMessage();
-                    // Use notification subject or default
-                    String subject = notificationMessage.getSubject();
-                    if (subject == null || subject.isEmpty()) {
-                        subject = emailProperties.getDefaultSubject();
-                    }
-
-                    NotificationMessageResolver.NotificationContent notificationContent = notificationMessageResolver.resolveMessage(notificationMessage, getChannel());
-                    String content = notificationContent.getContent();
-                    boolean isHtml = notificationContent.getIsHtml();
+            notificationContent = notificationMessageResolver.resolveMessage(notificationRecipient, getChannel());
+        } catch (Exception e) {
+            throw new DeliveryException("Failed to deliver email notification", e);
+        }
+        deliver(notificationRecipient, notificationContent);
+    }
 
-                    Set<String> attachmentUrls = notificationMessage.getAttachmentUrls();
-                    List<File> attachments = new ArrayList<>();
+    /**
+     * Resolves the batch's messages together, so recipients sharing a template are rendered once,
+     * and sends them over pooled SMTP connections, grouped by recipient domain. With multi-recipient
+     * sending enabled, recipients whose emails are identical share one message with many envelope
+     * recipients of the same domain.
+     */
+    @Override
+    public DeliveryResult deliver(Notification notification, Collection<NotificationRecipient> recipients) {
+        if (!isSupported()) {
+            throw new DeliveryException("Email delivery is not configured properly");
+        }
 
-                    if (attachmentUrls != null && !attachmentUrls.isEmpty()) {
-                        for (String attachmentUrl : attachmentUrls) {
-                            attachments.add(new File(attachmentUrl));
-                        }
-                    }
+        DeliveryResult result = new DeliveryResult();
+        Map<NotificationRecipient, NotificationMessageResolver.NotificationContent> contents =
+                notificationMessageResolver.resolveMessages(recipients, getChannel(), result::addFailure);
 
-                    log.info("Sending email to {} with subject: {}", notificationRecipient.getRecipientId(), subject);
+        Map<EmailContent, List<NotificationRecipient>> emails = new LinkedHashMap<>();
+        contents.forEach((notificationRecipient, notificationContent) -> {
+            try {
+                emails.computeIfAbsent(resolveEmail(notificationRecipient, notificationContent), key -> new ArrayList<>())
+                        .add(notificationRecipient);
+            } catch (DeliveryException e) {
+                result.addFailure(notificationRecipient, e);
+            } catch (Exception e) {
+                result.addFailure(notificationRecipient, new DeliveryException("Failed to deliver email notification", e));
+            }
+        });
 
-                    sendEmail(fromAddress, recipient, subject, content, isHtml, attachments);
+        Map<MimeMessage, List<NotificationRecipient>> messages = new LinkedHashMap<>();
+        Map<String, AttachmentCache.Attachment> attachments = new HashMap<>();
+        emails.forEach((email, emailRecipients) -> {
+            if (emailProperties.isMultiRecipientEnabled() && emailRecipients.size() > 1) {
+                addSharedMessages(email, emailRecipients, attachments, messages, result);
+            } else {
+                for (NotificationRecipient notificationRecipient : emailRecipients) {
+                    try {
+                        log.info("Sending email to {} with subject: {}", notificationRecipient.getRecipientId(), email.subject());
+                        messages.put(createEmail(email, addressOf(notificationRecipient), null, attachments),
+                                List.of(notificationRecipient));
+                    } catch (Exception e) {
+                        result.addFailure(notificationRecipient, new DeliveryException("Failed to deliver email notification", e));
+                    }
                 }
             }
+        });
+
+        Map<String, List<MimeMessage>> messagesByDomain = new LinkedHashMap<>();
+        messages.forEach((message, messageRecipients) -> messagesByDomain
+                .computeIfAbsent(domainOf(addressOf(messageRecipients.get(0))), key -> new ArrayList<>())
+                .add(message));
+        Map<MimeMessage, Exception> failures = emailDomainDispatcher.send(messagesByDomain);
+        messages.forEach((message, messageRecipients) ->
+                recordOutcome(messageRecipients, failures.get(message), result));
+        return result;
+    }
 
+    private void deliver(NotificationRecipient notificationRecipient,
+                         NotificationMessageResolver.NotificationContent notificationContent) throws DeliveryException {
+        MimeMessage message;
+        String domain;
+        try {
+            EmailContent email = resolveEmail(notificationRecipient, notificationContent);
+            log.info("Sending email to {} with subject: {}", notificationRecipient.getRecipientId(), email.subject());
+            message = createEmail(email, addressOf(notificationRecipient), null, new HashMap<>());
+            domain = domainOf(addressOf(notificationRecipient));
+        } catch (DeliveryException e) {
+            throw e;
         } catch (Exception e) {
             throw new DeliveryException("Failed to deliver email notification", e);
         }
+
+        Exception failure = emailDomainDispatcher.send(Map.of(domain, List.of(message))).get(message);
+        if (failure != null) {
+            throw new DeliveryException("Failed to deliver email notification", failure);
+        }
     }
 
-    private void sendEmail(String from, String to, String subject, String content, boolean isHtml, List<File> attachments)
-            throws Exception {
+    /**
+     * Sends one message per chunk of recipients, addressed to all of them through the envelope only.
+     * The To header is "undisclosed-recipients" and the Bcc header is stripped by the SMTP transport,
+     * so recipients never see each other's addresses. Chunks never span domains, so each chunk
+     * is sent within a single domain's limits.
+     */
+    private void addSharedMessages(EmailContent email,
+                                   List<NotificationRecipient> emailRecipients,
+                                   Map<String, AttachmentCache.Attachment> attachments,
+                                   Map<MimeMessage, List<NotificationRecipient>> messages,
+                                   DeliveryResult result) {
+        Map<String, List<NotificationRecipient>> recipientsByDomain = new LinkedHashMap<>();
+        for (NotificationRecipient notificationRecipient : emailRecipients) {
+            recipientsByDomain.computeIfAbsent(domainOf(addressOf(notificationRecipient)), key -> new ArrayList<>())
+                    .add(notificationRecipient);
+        }
+
+        int chunkSize = Math.max(1, emailProperties.getMaxRecipientsPerMessage());
+        for (List<NotificationRecipient> domainRecipients : recipientsByDomain.values()) {
+            for (int from = 0; from < domainRecipients.size(); from += chunkSize) {
+                List<NotificationRecipient> chunk = domainRecipients.subList(from, Math.min(domainRecipients.size(), from + chunkSize));
+                try {
+                    log.info("Sending email to {} recipients with subject: {}", chunk.size(), email.subject());
+                    messages.put(createEmail(email, null, chunk.stream().map(this::addressOf).distinct().toList(), attachments),
+                            List.copyOf(chunk));
+                } catch (Exception e) {
+                    DeliveryException failure = new DeliveryException("Failed to deliver email notification", e);
+                    chunk.forEach(notificationRecipient -> result.addFailure(notificationRecipient, failure));
+                }
+            }
+        }
+    }
 
-        if (from == null || from.isEmpty()) {
-            from = emailProperties.getFromAddress();
+    /**
+     * Maps the outcome of a message to its recipients. When the server rejected only some envelope
+     * recipients, the others count as delivered. Unless mail.smtp.sendpartial is set, JavaMail aborts
+     * such a message and reports the accepted recipients as unsent, so they are failed and retried.
+     */
+    private void recordOutcome(List<NotificationRecipient> messageRecipients, Exception failure, DeliveryResult result) {
+        if (failure == null) {
+            messageRecipients.forEach(result::addSuccess);
+            return;
         }
 
+        Set<String> failedAddresses = new HashSet<>();
+        if (messageRecipients.size() > 1 && failure instanceof SendFailedException sendFailure) {
+            addAddresses(failedAddresses, sendFailure.getInvalidAddresses());
+            addAddresses(failedAddresses, sendFailure.getValidUnsentAddresses());
+        }
+        DeliveryException deliveryFailure = new DeliveryException("Failed to deliver email notification", failure);
+        for (NotificationRecipient notificationRecipient : messageRecipients) {
+            if (failedAddresses.isEmpty() || failedAddresses.contains(addressOf(notificationRecipient).toLowerCase())) {
+                result.addFailure(notificationRecipient, deliveryFailure);
+            } else {
+                result.addSuccess(notificationRecipient);
+            }
+        }
+    }
+
+    private static void addAddresses(Set<String> target, Address[] addresses) {
+        if (addresses != null) {
+            for (Address address : addresses) {
+                target.add(address instanceof InternetAddress internetAddress ?
+                        internetAddress.getAddress().toLowerCase() : address.toString().toLowerCase());
+            }
+        }
+    }
+
+    private EmailContent resolveEmail(NotificationRecipient notificationRecipient,
+                                      NotificationMessageResolver.NotificationContent notificationContent) throws DeliveryException {
+        addressOf(notificationRecipient);
+
+        NotificationMessage notificationMessage = notificationRecipient.getMessage();
+        // Use notification subject or default
+        String subject = notificationMessage.getSubject();
+        if (subject == null || subject.isEmpty()) {
+            subject = emailProperties.getDefaultSubject();
+        }
+
+        Set<String> attachmentUrls = notificationMessage.getAttachmentUrls();
+        return new EmailContent(emailProperties.getFromAddress(), subject, notificationContent.getContent(),
+                Boolean.TRUE.equals(notificationContent.getIsHtml()), attachmentUrls != null ? Set.copyOf(attachmentUrls) : Set.of());
+    }
+
+    private String addressOf(NotificationRecipient notificationRecipient) throws DeliveryException {
+        String recipient = notificationRecipient.getAddress().getOrDefault(getChannel(), "");
+        if (recipient.isEmpty()) {
+            throw new DeliveryException("No email address for recipient: " + notificationRecipient.getRecipientId());
+        }
+        return recipient;
+    }
+
+    private static String domainOf(String address) {
+        int at = address.lastIndexOf('@');
+        return at >= 0 ? address.substring(at + 1).toLowerCase() : "";
+    }
+
+    /**
+     * Creates a message. Attachments are resolved once per batch through the attachment cache
+     * and added as pre-encoded parts, so they are not read or encoded again per message.
+     */
+    private MimeMessage createEmail(EmailContent email, String to, List<String> bcc,
+                                    Map<String, AttachmentCache.Attachment> attachments) throws Exception {
         MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, !attachments.isEmpty());
+        MimeMessageHelper helper = new MimeMessageHelper(message, !email.attachmentUrls().isEmpty());
 
-        helper.setFrom(from);
-        helper.setTo(to);
-        helper.setSubject(subject);
+        helper.setFrom(email.from());
+        if (to != null) {
+            helper.setTo(to);
+        } else {
+            helper.setBcc(bcc.toArray(new String[0]));
+            message.setHeader("To", UNDISCLOSED_RECIPIENTS);
+        }
+        helper.setSubject(email.subject());
 
-        helper.setText(content, isHtml);
+        helper.setText(email.content(), email.html());
 
-        if (!attachments.isEmpty()) {
-            for (File attachment : attachments) {
-                helper.addAttachment(attachment.getName(), attachment);
-            }
+        for (String attachmentUrl : email.attachmentUrls()) {
+            AttachmentCache.Attachment attachment = attachments.computeIfAbsent(attachmentUrl, attachmentCache::resolve);
+            helper.getRootMimeMultipart().addBodyPart(attachment.toBodyPart());
         }
 
-        mailSender.send(message);
+        return message;
+    }
+
+    /**
+     * Everything that makes up an email apart from its recipient. Recipients with equal
+     * EmailContent receive byte-identical messages.
+     */
+    private record EmailContent(String from, String subject, String content, boolean html, Set<String> attachmentUrls) {
     }
 
     @Override
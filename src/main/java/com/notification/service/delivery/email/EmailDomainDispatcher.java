@@ -0,0 +1,200 @@
+package com.notification.service.delivery.email;
+
+import com.notification.config.EmailProperties;
+import com.notification.service.throttle.ThrottledException;
+import com.notification.service.throttle.TokenBucket;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends email batches grouped by recipient domain. Each domain is sent as its own task,
+ * limited to a number of concurrent connections and a message rate, so receiving servers
+ * are not hit beyond their limits. Domains are sent in parallel: a domain that is slow or
+ * over its limits only delays its own messages, and gives up on them after domainMaxWaitMs,
+ * leaving them to the retry schedule.
+ * <p>
+ * A domain's messages are sent over one pooled connection per rate slice. Limits are tracked
+ * for up to maxTrackedDomains domains; a domain's entry is only dropped while no batch is
+ * sending to it, so its connection limit always holds.
+ */
+@Component
+@Slf4j
+public class EmailDomainDispatcher implements DisposableBean {
+
+    private static final long IDLE_EXPIRY_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final SmtpTransportPool smtpTransportPool;
+    private final EmailProperties emailProperties;
+    private final Map<String, DomainQueue> domains = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.nanoTime();
+    private final ThreadPoolExecutor executor;
+
+    public EmailDomainDispatcher(SmtpTransportPool smtpTransportPool, EmailProperties emailProperties) {
+        this.smtpTransportPool = smtpTransportPool;
+        this.emailProperties = emailProperties;
+        int threads = Math.max(1, emailProperties.getDomainThreads());
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 64), new CustomizableThreadFactory("email-domain-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sends messages grouped by recipient domain and waits until every domain is done.
+     *
+     * @param messagesByDomain The messages to send, keyed by lower-case recipient domain
+     * @return the messages that could not be sent, with their errors
+     */
+    public Map<MimeMessage, Exception> send(Map<String, List<MimeMessage>> messagesByDomain) {
+        if (!emailProperties.isDomainBatchingEnabled()) {
+            List<MimeMessage> messages = new ArrayList<>();
+            messagesByDomain.values().forEach(messages::addAll);
+            return smtpTransportPool.send(messages);
+        }
+
+        Map<MimeMessage, Exception> failures = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        List<Map.Entry<String, List<MimeMessage>>> batches = new ArrayList<>(messagesByDomain.entrySet());
+        for (int i = 0; i < batches.size(); i++) {
+            Map.Entry<String, List<MimeMessage>> batch = batches.get(i);
+            if (i == batches.size() - 1) {
+                // The calling thread sends the last domain itself rather than idling
+                sendDomain(batch.getKey(), batch.getValue(), failures);
+            } else {
+                pending.add(CompletableFuture.runAsync(
+                        () -> sendDomain(batch.getKey(), batch.getValue(), failures), executor));
+            }
+        }
+        pending.forEach(CompletableFuture::join);
+        return new LinkedHashMap<>(failures);
+    }
+
+    private void sendDomain(String domain, List<MimeMessage> messages, Map<MimeMessage, Exception> failures) {
+        DomainQueue queue = pin(domain);
+        try {
+            sendDomain(domain, queue, messages, failures);
+        } finally {
+            unpin(domain);
+        }
+    }
+
+    private void sendDomain(String domain,
+                            DomainQueue queue,
+                            List<MimeMessage> messages,
+                            Map<MimeMessage, Exception> failures) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(emailProperties.getDomainMaxWaitMs());
+
+        boolean acquired;
+        try {
+            acquired = queue.connections.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            defer(domain, messages, failures);
+            return;
+        }
+
+        try {
+            int sliceSize = queue.bucket != null ? queue.sliceSize : messages.size();
+            for (int from = 0; from < messages.size(); from += sliceSize) {
+                List<MimeMessage> slice = messages.subList(from, Math.min(messages.size(), from + sliceSize));
+                if (queue.bucket != null) {
+                    long wait = queue.bucket.reserve(slice.size(), Math.max(0, deadline - System.nanoTime()));
+                    if (wait < 0) {
+                        defer(domain, messages.subList(from, messages.size()), failures);
+                        return;
+                    }
+                    LockSupport.parkNanos(wait);
+                }
+                failures.putAll(smtpTransportPool.send(slice));
+            }
+        } catch (RuntimeException e) {
+            messages.forEach(message -> failures.putIfAbsent(message, e));
+        } finally {
+            queue.connections.release();
+        }
+    }
+
+    /**
+     * Returns a domain's entry, creating it if needed, and keeps it from being dropped until unpinned.
+     */
+    private DomainQueue pin(String domain) {
+        return domains.compute(domain, (key, queue) -> {
+            DomainQueue pinned = queue != null ? queue : new DomainQueue(emailProperties.getDomainLimit(key));
+            pinned.users++;
+            return pinned;
+        });
+    }
+
+    private void unpin(String domain) {
+        domains.computeIfPresent(domain, (key, queue) -> {
+            queue.users--;
+            queue.lastUsed = System.nanoTime();
+            return queue;
+        });
+        if (domains.size() > emailProperties.getMaxTrackedDomains()) {
+            evictUnused(false);
+        } else if (System.nanoTime() - lastSweep >= IDLE_EXPIRY_NANOS) {
+            evictUnused(true);
+        }
+    }
+
+    /**
+     * Drops entries no batch is using: only those idle for a while, or all of them when
+     * more domains are tracked than allowed.
+     */
+    private void evictUnused(boolean expiredOnly) {
+        long now = System.nanoTime();
+        lastSweep = now;
+        for (String domain : domains.keySet()) {
+            domains.computeIfPresent(domain, (key, queue) ->
+                    queue.users == 0 && (!expiredOnly || now - queue.lastUsed >= IDLE_EXPIRY_NANOS) ? null : queue);
+        }
+    }
+
+    private static void defer(String domain, List<MimeMessage> messages, Map<MimeMessage, Exception> failures) {
+        log.debug("Deferring {} emails to {}: domain limit reached", messages.size(), domain);
+        ThrottledException deferred = new ThrottledException("Rate limit exceeded for domain " + domain);
+        messages.forEach(message -> failures.put(message, deferred));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Limits of one recipient domain. The usage fields are only accessed inside map updates.
+     */
+    private static final class DomainQueue {
+
+        private final Semaphore connections;
+        private final TokenBucket bucket;
+        private final int sliceSize;
+        private int users;
+        private long lastUsed = System.nanoTime();
+
+        private DomainQueue(EmailProperties.DomainLimit limit) {
+            this.connections = new Semaphore(Math.max(1, limit.getMaxConcurrency()));
+            this.bucket = limit.isRateLimited() ? new TokenBucket(limit.getRatePerSecond(), limit.getEffectiveBurst()) : null;
+            this.sliceSize = limit.getEffectiveBurst();
+        }
+    }
+}
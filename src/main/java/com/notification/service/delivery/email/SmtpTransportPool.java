@@ -0,0 +1,226 @@
+package com.notification.service.delivery.email;
+
+import com.notification.config.EmailProperties;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps authenticated SMTP connections open and reuses them across messages, so a batch
+ * pays for the EHLO/STARTTLS/AUTH handshake once per connection instead of once per message.
+ * <p>
+ * Connections are handed out most recently used first. A connection is closed once it has
+ * sent smtpMaxMessagesPerConnection messages, has been idle longer than the idle timeout,
+ * or has failed. Pooling requires the JavaMailSender to be a JavaMailSenderImpl; with any
+ * other sender, messages are sent through the sender one by one.
+ */
+@Component
+@Slf4j
+public class SmtpTransportPool implements DisposableBean {
+
+    private final JavaMailSender mailSender;
+    private final EmailProperties emailProperties;
+    private final JavaMailSenderImpl pooledSender;
+    private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+
+    public SmtpTransportPool(JavaMailSender mailSender, EmailProperties emailProperties) {
+        this.mailSender = mailSender;
+        this.emailProperties = emailProperties;
+        this.pooledSender = emailProperties.isSmtpPoolEnabled() && mailSender instanceof JavaMailSenderImpl impl ? impl : null;
+        this.permits = new Semaphore(Math.max(1, emailProperties.getSmtpPoolSize()));
+    }
+
+    /**
+     * @return true if connections are pooled
+     */
+    public boolean isPooling() {
+        return pooledSender != null;
+    }
+
+    /**
+     * Sends messages over pooled connections. A message rejected by the server does not stop
+     * the others, and a broken connection is replaced for the messages after it. The message a
+     * connection broke on is reported as failed rather than sent again here, as the server may
+     * already have accepted it; retrying is left to the RetryService. Stale idle connections are
+     * discarded before use, so they never cost a message. If no connection can be obtained, the
+     * remaining messages fail.
+     *
+     * @param messages The messages to send
+     * @return the messages that could not be sent, with their errors
+     */
+    public Map<MimeMessage, Exception> send(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failures = new LinkedHashMap<>();
+        if (!isPooling()) {
+            for (MimeMessage message : messages) {
+                try {
+                    mailSender.send(message);
+                } catch (Exception e) {
+                    failures.put(message, e);
+                }
+            }
+            return failures;
+        }
+
+        PooledTransport transport = null;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage message = messages.get(i);
+                if (transport == null || transport.isExhausted()) {
+                    release(transport, false);
+                    transport = null;
+                    try {
+                        transport = borrow();
+                    } catch (MessagingException e) {
+                        for (int j = i; j < messages.size(); j++) {
+                            failures.put(messages.get(j), e);
+                        }
+                        return failures;
+                    }
+                }
+                try {
+                    transport.send(message);
+                } catch (SendFailedException e) {
+                    // Rejected recipients; the connection itself is still usable
+                    failures.put(message, e);
+                } catch (MessagingException e) {
+                    // The message may have been transferred before the connection broke
+                    log.debug("Pooled SMTP connection failed", e);
+                    failures.put(message, e);
+                    release(transport, true);
+                    transport = null;
+                }
+            }
+        } finally {
+            release(transport, false);
+        }
+        return failures;
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(emailProperties.getSmtpPoolBorrowTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Timed out waiting for a pooled SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for a pooled SMTP connection", e);
+        }
+
+        try {
+            PooledTransport transport;
+            while ((transport = idle.pollFirst()) != null) {
+                if (!transport.isExpired() && transport.isConnected()) {
+                    return transport;
+                }
+                transport.close();
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledTransport transport, boolean broken) {
+        if (transport == null) {
+            return;
+        }
+        if (broken || transport.isExhausted()) {
+            transport.close();
+        } else {
+            transport.touch();
+            idle.offerFirst(transport);
+        }
+        permits.release();
+        evictIdle();
+    }
+
+    private void evictIdle() {
+        Iterator<PooledTransport> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext()) {
+            PooledTransport transport = oldestFirst.next();
+            if (!transport.isExpired()) {
+                break;
+            }
+            if (idle.removeLastOccurrence(transport)) {
+                transport.close();
+            }
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Session session = pooledSender.getSession();
+        Transport transport = session.getTransport(pooledSender.getProtocol() != null ? pooledSender.getProtocol() : "smtp");
+        transport.connect(pooledSender.getHost(), pooledSender.getPort(),
+                pooledSender.getUsername(), pooledSender.getPassword());
+        log.debug("Opened pooled SMTP connection to {}:{}", pooledSender.getHost(), pooledSender.getPort());
+        return new PooledTransport(transport);
+    }
+
+    @Override
+    public void destroy() {
+        List<PooledTransport> transports = new ArrayList<>();
+        idle.drainTo(transports);
+        transports.forEach(PooledTransport::close);
+    }
+
+    private class PooledTransport {
+        private final Transport transport;
+        private int messagesSent;
+        private long lastUsed = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        void send(MimeMessage message) throws MessagingException {
+            message.saveChanges();
+            messagesSent++;
+            transport.sendMessage(message, message.getAllRecipients());
+        }
+
+        boolean isExhausted() {
+            return messagesSent >= emailProperties.getSmtpMaxMessagesPerConnection();
+        }
+
+        boolean isExpired() {
+            return isExhausted()
+                    || System.nanoTime() - lastUsed >= TimeUnit.SECONDS.toNanos(emailProperties.getSmtpPoolIdleTimeoutSeconds());
+        }
+
+        boolean isConnected() {
+            // For SMTP this issues a NOOP, catching connections the server has dropped
+            return transport.isConnected();
+        }
+
+        void touch() {
+            lastUsed = System.nanoTime();
+        }
+
+        void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Failed to close pooled SMTP connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.notification.service.delivery.sms;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking interface for SMS service providers, for gateways that accept many messages
+ * in flight at once (e.g. SMPP sessions or asynchronous HTTP clients). Applications that
+ * provide an AsyncSmsSender bean use it instead of the blocking {@link SmsSender}.
+ */
+public interface AsyncSmsSender {
+
+    /**
+     * Submits an SMS message without waiting for the gateway.
+     *
+     * @param recipient The recipient phone number
+     * @param content   The message content
+     * @return completes with the gateway's message id (may be null) once the gateway accepted
+     *         the message, or exceptionally with an {@link SmsException} if it was rejected
+     */
+    CompletableFuture<String> submit(String recipient, String content);
+
+    /**
+     * Submits several SMS messages. By default each message is submitted on its own.
+     *
+     * @param recipientListWithMessage Message content keyed by recipient phone number
+     * @return one result per recipient, see {@link #submit(String, String)}
+     */
+    default Map<String, CompletableFuture<String>> submitBulk(Map<String, String> recipientListWithMessage) {
+        Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+        recipientListWithMessage.forEach((recipient, content) -> results.put(recipient, submit(recipient, content)));
+        return results;
+    }
+
+    /**
+     * Checks if this SMS sender is properly configured and ready to use.
+     *
+     * @return true if the sender is configured and operational
+     */
+    boolean isConfigured();
+}
@@ -3,6 +3,7 @@ package com.notification.service.delivery.sms;
 import com.notification.domain.notification.NotificationRecipient;
 import com.notification.service.NotificationMessageResolver;
 import com.notification.service.delivery.DeliveryException;
+import com.notification.service.delivery.DeliveryResult;
 import com.notification.service.delivery.DeliveryService;
 import org.springframework.stereotype.Service;
 
@@ -10,25 +11,87 @@ import com.notification.config.SmsProperties;
 import com.notification.domain.notification.NotificationChannel;
 import com.notification.domain.notification.Notification;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Nullable;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for delivering notifications via SMS.
  * This is a placeholder implementation - in a real application,
  * you would integrate with an SMS provider API like Twilio, Nexmo, etc.
+ * <p>
+ * Messages go through an {@link AsyncSmsSender}, limited to windowSize messages in flight.
+ * A blocking {@link SmsSender} is used through an adapter when no AsyncSmsSender is provided.
+ * Large batches are submitted in bulkBatchSize chunks, up to bulkParallelism at once.
+ * <p>
+ * Publishes {@code notification.sms.messages} and {@code notification.sms.segments}, the
+ * messages and billed segments accepted by the gateway, tagged with the encoding.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
-public class SmsDeliveryService implements DeliveryService {
+public class SmsDeliveryService implements DeliveryService, DisposableBean {
 
-    private final SmsSender smsSender;
+    private final AsyncSmsSender smsSender;
     private final SmsProperties smsProperties;
     private final NotificationMessageResolver notificationMessageResolver;
+    private final Map<SmsEncoding, Counter> messageCounters = new EnumMap<>(SmsEncoding.class);
+    private final Map<SmsEncoding, Counter> segmentCounters = new EnumMap<>(SmsEncoding.class);
+    private final ThreadPoolExecutor bulkExecutor;
+
+    public SmsDeliveryService(@Nullable SmsSender smsSender,
+                              @Nullable AsyncSmsSender asyncSmsSender,
+                              SmsProperties smsProperties,
+                              NotificationMessageResolver notificationMessageResolver,
+                              MeterRegistry meterRegistry) {
+        if (asyncSmsSender != null) {
+            this.smsSender = new WindowedSmsSender(asyncSmsSender, smsProperties.getWindowSize(),
+                    smsProperties.getWindowTimeoutMs());
+        } else if (smsSender != null) {
+            this.smsSender = new SmsSenderAdapter(smsSender);
+        } else {
+            throw new IllegalStateException("SMS is enabled but neither an SmsSender nor an AsyncSmsSender is provided");
+        }
+        this.smsProperties = smsProperties;
+        this.notificationMessageResolver = notificationMessageResolver;
+
+        for (SmsEncoding encoding : SmsEncoding.values()) {
+            messageCounters.put(encoding, Counter.builder("notification.sms.messages")
+                    .description("SMS messages accepted by the gateway")
+                    .tag("encoding", encoding.name())
+                    .register(meterRegistry));
+            segmentCounters.put(encoding, Counter.builder("notification.sms.segments")
+                    .description("SMS segments accepted by the gateway")
+                    .tag("encoding", encoding.name())
+                    .register(meterRegistry));
+        }
+
+        int extraThreads = smsProperties.getBulkParallelism() - 1;
+        if (extraThreads > 0) {
+            this.bulkExecutor = new ThreadPoolExecutor(extraThreads, extraThreads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(extraThreads * 16), new CustomizableThreadFactory("sms-bulk-"),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            this.bulkExecutor.allowCoreThreadTimeOut(true);
+        } else {
+            this.bulkExecutor = null;
+        }
+    }
 
     @Override
     public NotificationChannel getChannel() {
@@ -36,68 +99,235 @@ public class SmsDeliveryService implements DeliveryService {
     }
 
     @Override
-    public void deliver(Notification notification) throws DeliveryException {
+    public void deliver(Notification notification, NotificationRecipient recipient) throws DeliveryException {
         if (!isSupported()) {
             throw new DeliveryException("SMS delivery is not configured properly");
         }
 
+        String phoneNumber = recipient.getAddress().getOrDefault(getChannel(), "");
+        if (phoneNumber.isEmpty()) {
+            throw new DeliveryException("No phone number for recipient: " + recipient.getRecipientId());
+        }
+
+        PreparedSms sms;
+        Throwable failure;
         try {
-            Map<String, String> bulkSmsData = new HashMap<>();
-            for (NotificationRecipient recipient : notification.getRecipients()) {
-                // Use accessor methods
-                String content = notificationMessageResolver
-                                .resolveMessage(recipient.getMessage(), getChannel()).getContent();
-                String phoneNumber =recipient.getAddress().getOrDefault(getChannel(), "");
-                if (!phoneNumber.isEmpty()) {
-                    bulkSmsData.put(phoneNumber, content);
-                }
-            }
+            sms = prepare(notificationMessageResolver.resolveMessage(recipient, getChannel()).getContent());
+            failure = send(Map.of(phoneNumber, sms.content())).get(phoneNumber);
+        } catch (Exception e) {
+            throw new DeliveryException("Failed to deliver SMS notification", e);
+        }
+        if (failure != null) {
+            throw new DeliveryException("Failed to deliver SMS notification", failure);
+        }
+        record(sms);
+    }
 
-            if (!bulkSmsData.isEmpty()) {
-                smsSender.sendBulkSms(bulkSmsData);
+    /**
+     * Resolves every recipient's message and submits them together, keeping up to windowSize
+     * messages in flight. Recipients sharing a phone number and content get one message; as the
+     * gateway takes one message per number and call, a number with several distinct contents is
+     * sent each of them in a later round. The outcome is tracked per number and content.
+     */
+    @Override
+    public DeliveryResult deliver(Notification notification, Collection<NotificationRecipient> recipients) {
+        if (!isSupported()) {
+            throw new DeliveryException("SMS delivery is not configured properly");
+        }
+
+        DeliveryResult result = new DeliveryResult();
+        Map<SmsKey, PreparedSms> prepared = new HashMap<>();
+        Map<SmsKey, List<NotificationRecipient>> bulkRecipients = new LinkedHashMap<>();
+        List<NotificationRecipient> addressed = new ArrayList<>();
+        for (NotificationRecipient recipient : recipients) {
+            if (recipient.getAddress().getOrDefault(getChannel(), "").isEmpty()) {
+                result.addFailure(recipient,
+                        new DeliveryException("No phone number for recipient: " + recipient.getRecipientId()));
+            } else {
+                addressed.add(recipient);
             }
+        }
 
-        } catch (SmsException e) {
-            throw new DeliveryException("Failed to deliver SMS notification", e);
+        notificationMessageResolver.resolveMessages(addressed, getChannel(), result::addFailure)
+                .forEach((recipient, content) -> {
+                    PreparedSms sms = prepare(content.getContent());
+                    SmsKey key = new SmsKey(recipient.getAddress().get(getChannel()), sms.content());
+                    prepared.putIfAbsent(key, sms);
+                    bulkRecipients.computeIfAbsent(key, ignored -> new ArrayList<>()).add(recipient);
+                });
+
+        for (Map<String, SmsKey> round : rounds(bulkRecipients.keySet())) {
+            Map<String, String> bulkSmsData = new LinkedHashMap<>();
+            round.forEach((phoneNumber, key) -> bulkSmsData.put(phoneNumber, key.content()));
+            Map<String, Throwable> failures = send(bulkSmsData);
+            round.forEach((phoneNumber, key) -> {
+                List<NotificationRecipient> keyRecipients = bulkRecipients.get(key);
+                Throwable failure = failures.get(phoneNumber);
+                if (failure == null) {
+                    record(prepared.get(key));
+                    keyRecipients.forEach(result::addSuccess);
+                } else {
+                    DeliveryException deliveryFailure = new DeliveryException("Failed to deliver SMS notification", failure);
+                    keyRecipients.forEach(recipient -> result.addFailure(recipient, deliveryFailure));
+                }
+            });
         }
+        return result;
     }
 
-    @Override
-    public boolean isSupported() {
-        return smsSender.isConfigured();
+    /**
+     * Splits messages into rounds holding at most one message per phone number.
+     */
+    private static List<Map<String, SmsKey>> rounds(Collection<SmsKey> keys) {
+        List<Map<String, SmsKey>> rounds = new ArrayList<>();
+        for (SmsKey key : keys) {
+            Map<String, SmsKey> round = null;
+            for (Map<String, SmsKey> candidate : rounds) {
+                if (!candidate.containsKey(key.phoneNumber())) {
+                    round = candidate;
+                    break;
+                }
+            }
+            if (round == null) {
+                round = new LinkedHashMap<>();
+                rounds.add(round);
+            }
+            round.put(key.phoneNumber(), key);
+        }
+        return rounds;
     }
 
-    private String sanitizeContent(String content) {
-        if (content == null) {
-            return "";
+    /**
+     * Submits messages and waits for their outcomes, resubmitting the numbers that were rejected
+     * up to retryAttempts times. Messages that are still unanswered at submitTimeoutMs are
+     * failed without a retry, since the gateway may yet deliver them.
+     *
+     * @param messages Message content keyed by phone number
+     * @return the errors of the numbers that could not be sent
+     */
+    private Map<String, Throwable> send(Map<String, String> messages) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(smsProperties.getSubmitTimeoutMs());
+        Map<String, String> pending = messages;
+        Map<String, Throwable> failures = new HashMap<>();
+        for (int attempt = 0; ; attempt++) {
+            Map<String, Throwable> rejected = new HashMap<>();
+            submit(pending).forEach((phoneNumber, outcome) -> {
+                Throwable failure = await(outcome, deadline);
+                if (failure instanceof TimeoutException) {
+                    failures.put(phoneNumber, failure);
+                } else if (failure != null) {
+                    rejected.put(phoneNumber, failure);
+                }
+            });
+            if (rejected.isEmpty() || attempt >= smsProperties.getRetryAttempts() || System.nanoTime() - deadline >= 0) {
+                failures.putAll(rejected);
+                return failures;
+            }
+            log.debug("Resubmitting {} rejected SMS messages", rejected.size());
+            Map<String, String> retry = new LinkedHashMap<>();
+            rejected.keySet().forEach(phoneNumber -> retry.put(phoneNumber, messages.get(phoneNumber)));
+            pending = retry;
         }
+    }
 
-        // Limit message length
-        int maxLength = 160; // Default value if getter not available
-        try {
-            maxLength = smsProperties.getMaxLength();
-        } catch (Exception e) {
-            log.warn("Could not access maxLength property, using default value: {}", maxLength);
+    /**
+     * Submits messages in chunks of bulkBatchSize, so no gateway call exceeds the gateway's batch
+     * limit. Chunks are submitted in parallel, the last one on the calling thread.
+     */
+    private Map<String, CompletableFuture<String>> submit(Map<String, String> messages) {
+        int batchSize = Math.max(1, smsProperties.getBulkBatchSize());
+        if (messages.size() <= batchSize) {
+            return smsSender.submitBulk(messages);
         }
 
-        if (content.length() > maxLength) {
-            boolean splitMessages = false; // Default value if getter not available
-            try {
-                splitMessages = smsProperties.isSplitLongMessages();
-            } catch (Exception e) {
-                log.warn("Could not access splitLongMessages property, using default value: {}", splitMessages);
+        List<Map<String, String>> batches = new ArrayList<>();
+        Map<String, String> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, String> message : messages.entrySet()) {
+            batch.put(message.getKey(), message.getValue());
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new LinkedHashMap<>();
             }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
 
-            if (splitMessages) {
-                // Implement message splitting logic if needed
-                return content;
+        Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+        for (int i = 0; i < batches.size(); i++) {
+            Map<String, String> current = batches.get(i);
+            CompletableFuture<Map<String, CompletableFuture<String>>> submitted;
+            if (bulkExecutor == null || i == batches.size() - 1) {
+                try {
+                    submitted = CompletableFuture.completedFuture(smsSender.submitBulk(current));
+                } catch (RuntimeException e) {
+                    submitted = CompletableFuture.failedFuture(e);
+                }
             } else {
-                // Truncate
-                return content.substring(0, maxLength);
+                submitted = CompletableFuture.supplyAsync(() -> smsSender.submitBulk(current), bulkExecutor);
+            }
+            for (String phoneNumber : current.keySet()) {
+                results.put(phoneNumber, submitted.thenCompose(outcomes -> outcomes.getOrDefault(phoneNumber,
+                        CompletableFuture.failedFuture(new SmsException("No result from the gateway for " + phoneNumber)))));
             }
         }
+        return results;
+    }
+
+    /**
+     * Fits content to the segment limits. Without splitLongMessages a message is cut to one
+     * segment of at most maxLength characters; with it, to at most maxSegments segments.
+     */
+    private PreparedSms prepare(String content) {
+        if (content == null) {
+            content = "";
+        }
+        SmsEncoding encoding = SmsSegmenter.detect(content);
+        if (!smsProperties.isSplitLongMessages()) {
+            int limit = Math.min(smsProperties.getMaxLength(), encoding.getSingleSegmentLength());
+            if (SmsSegmenter.length(content, encoding) > limit) {
+                content = SmsSegmenter.truncate(content, encoding, limit);
+            }
+            return new PreparedSms(content, encoding, 1);
+        }
+
+        List<String> segments = SmsSegmenter.split(content, encoding);
+        int maxSegments = Math.max(1, smsProperties.getMaxSegments());
+        if (segments.size() > maxSegments) {
+            return new PreparedSms(String.join("", segments.subList(0, maxSegments)), encoding, maxSegments);
+        }
+        return new PreparedSms(content, encoding, segments.size());
+    }
 
-        return content;
+    private void record(PreparedSms sms) {
+        messageCounters.get(sms.encoding()).increment();
+        segmentCounters.get(sms.encoding()).increment(sms.segments());
+    }
+
+    private static Throwable await(CompletableFuture<String> outcome, long deadline) {
+        try {
+            outcome.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            return e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+
+    @Override
+    public boolean isSupported() {
+        return smsSender.isConfigured();
+    }
+
+    @Override
+    public void destroy() {
+        if (bulkExecutor != null) {
+            bulkExecutor.shutdown();
+        }
     }
 
     private String sanitizePhoneNumber(String phoneNumber) {
@@ -108,4 +338,16 @@ public class SmsDeliveryService implements DeliveryService {
         // Strip non-numeric characters for E.164 format
         return phoneNumber.replaceAll("[^+0-9]", "");
     }
+
+    /**
+     * One message of a batch: a phone number and the content sent to it.
+     */
+    private record SmsKey(String phoneNumber, String content) {
+    }
+
+    /**
+     * Message content after fitting it to the segment limits.
+     */
+    private record PreparedSms(String content, SmsEncoding encoding, int segments) {
+    }
 }
\ No newline at end of file
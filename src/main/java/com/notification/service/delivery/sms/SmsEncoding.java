@@ -0,0 +1,39 @@
+package com.notification.service.delivery.sms;
+
+/**
+ * Character encodings an SMS can be sent in, with their segment sizes.
+ */
+public enum SmsEncoding {
+
+    /**
+     * GSM 03.38 default alphabet, 7 bits per character. Extension characters take two.
+     */
+    GSM7(160, 153),
+
+    /**
+     * UCS-2, 16 bits per UTF-16 code unit. Used as soon as one character is outside GSM-7.
+     */
+    UCS2(70, 67);
+
+    private final int singleSegmentLength;
+    private final int concatenatedSegmentLength;
+
+    SmsEncoding(int singleSegmentLength, int concatenatedSegmentLength) {
+        this.singleSegmentLength = singleSegmentLength;
+        this.concatenatedSegmentLength = concatenatedSegmentLength;
+    }
+
+    /**
+     * @return units (septets or code units) that fit in a message sent as one segment
+     */
+    public int getSingleSegmentLength() {
+        return singleSegmentLength;
+    }
+
+    /**
+     * @return units that fit in each segment of a concatenated message, after the UDH header
+     */
+    public int getConcatenatedSegmentLength() {
+        return concatenatedSegmentLength;
+    }
+}
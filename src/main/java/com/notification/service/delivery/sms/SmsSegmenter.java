@@ -0,0 +1,110 @@
+package com.notification.service.delivery.sms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Works out how an SMS is encoded and how it is split into segments. Splitting never cuts a
+ * GSM-7 escape sequence or a UTF-16 surrogate pair, matching how gateways build concatenated
+ * messages, so the segment count is the number of messages the gateway bills.
+ */
+public final class SmsSegmenter {
+
+    private static final String GSM7_BASIC =
+            "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+                    + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+    private static final String GSM7_EXTENSION = "\f^{}\\[~]|€";
+
+    private SmsSegmenter() {
+    }
+
+    /**
+     * @param content The message content
+     * @return GSM7 if every character is in the GSM 03.38 alphabet, UCS2 otherwise
+     */
+    public static SmsEncoding detect(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            if (septets(content.charAt(i)) == 0) {
+                return SmsEncoding.UCS2;
+            }
+        }
+        return SmsEncoding.GSM7;
+    }
+
+    /**
+     * Splits content into the parts a gateway sends as separate segments.
+     *
+     * @param content  The message content
+     * @param encoding The encoding, see {@link #detect(String)}
+     * @return one part per segment; a single part if the content fits in one segment
+     */
+    public static List<String> split(String content, SmsEncoding encoding) {
+        if (length(content, encoding) <= encoding.getSingleSegmentLength()) {
+            return List.of(content);
+        }
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (start < content.length()) {
+            int end = fit(content, start, encoding, encoding.getConcatenatedSegmentLength());
+            parts.add(content.substring(start, end));
+            start = end;
+        }
+        return parts;
+    }
+
+    /**
+     * Returns the longest prefix of content that fits in the given number of units.
+     *
+     * @param content  The message content
+     * @param encoding The encoding, see {@link #detect(String)}
+     * @param units    Septets for GSM-7, code units for UCS-2
+     * @return the prefix
+     */
+    public static String truncate(String content, SmsEncoding encoding, int units) {
+        return content.substring(0, fit(content, 0, encoding, units));
+    }
+
+    /**
+     * @param content  The message content
+     * @param encoding The encoding, see {@link #detect(String)}
+     * @return the content's length in septets for GSM-7, or in UTF-16 code units for UCS-2
+     */
+    public static int length(String content, SmsEncoding encoding) {
+        if (encoding == SmsEncoding.UCS2) {
+            return content.length();
+        }
+        int length = 0;
+        for (int i = 0; i < content.length(); i++) {
+            length += septets(content.charAt(i));
+        }
+        return length;
+    }
+
+    private static int fit(String content, int start, SmsEncoding encoding, int units) {
+        int used = 0;
+        int end = start;
+        while (end < content.length()) {
+            char c = content.charAt(end);
+            int width;
+            if (encoding == SmsEncoding.GSM7) {
+                width = septets(c);
+            } else {
+                width = Character.isHighSurrogate(c) && end + 1 < content.length() ? 2 : 1;
+            }
+            if (used + width > units) {
+                break;
+            }
+            used += width;
+            end += encoding == SmsEncoding.GSM7 ? 1 : width;
+        }
+        // Always make progress, even if a single character does not fit
+        return end > start ? end : Math.min(content.length(), start + 1);
+    }
+
+    private static int septets(char c) {
+        if (GSM7_BASIC.indexOf(c) >= 0) {
+            return 1;
+        }
+        return GSM7_EXTENSION.indexOf(c) >= 0 ? 2 : 0;
+    }
+}
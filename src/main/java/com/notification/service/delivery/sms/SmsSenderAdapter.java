@@ -0,0 +1,50 @@
+package com.notification.service.delivery.sms;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Exposes a blocking {@link SmsSender} as an {@link AsyncSmsSender}. Messages are sent on the
+ * calling thread and the returned futures are already complete; a bulk submission is a single
+ * sendBulkSms call whose outcome applies to every message in it.
+ */
+class SmsSenderAdapter implements AsyncSmsSender {
+
+    private final SmsSender smsSender;
+
+    SmsSenderAdapter(SmsSender smsSender) {
+        this.smsSender = smsSender;
+    }
+
+    @Override
+    public CompletableFuture<String> submit(String recipient, String content) {
+        try {
+            smsSender.sendSms(recipient, content);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public Map<String, CompletableFuture<String>> submitBulk(Map<String, String> recipientListWithMessage) {
+        CompletableFuture<String> outcome;
+        try {
+            smsSender.sendBulkSms(recipientListWithMessage);
+            outcome = CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            outcome = CompletableFuture.failedFuture(e);
+        }
+        Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+        for (String recipient : recipientListWithMessage.keySet()) {
+            results.put(recipient, outcome);
+        }
+        return results;
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return smsSender.isConfigured();
+    }
+}
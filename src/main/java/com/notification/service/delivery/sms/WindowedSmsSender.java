@@ -0,0 +1,50 @@
+package com.notification.service.delivery.sms;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of messages in flight on an {@link AsyncSmsSender}, like an SMPP
+ * window: a submission waits for a free slot, and the slot is freed once the gateway
+ * has answered. The submitting thread never waits for the gateway itself, so a few
+ * threads can keep a full window busy.
+ */
+class WindowedSmsSender implements AsyncSmsSender {
+
+    private final AsyncSmsSender delegate;
+    private final Semaphore window;
+    private final long windowTimeoutMs;
+
+    WindowedSmsSender(AsyncSmsSender delegate, int windowSize, long windowTimeoutMs) {
+        this.delegate = delegate;
+        this.window = new Semaphore(Math.max(1, windowSize));
+        this.windowTimeoutMs = windowTimeoutMs;
+    }
+
+    @Override
+    public CompletableFuture<String> submit(String recipient, String content) {
+        try {
+            if (!window.tryAcquire(windowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new SmsException("No free SMS window slot within " + windowTimeoutMs + " ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new SmsException("Interrupted while waiting for an SMS window slot", e));
+        }
+
+        CompletableFuture<String> result;
+        try {
+            result = delegate.submit(recipient, content);
+        } catch (RuntimeException e) {
+            window.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((messageId, error) -> window.release());
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return delegate.isConfigured();
+    }
+}
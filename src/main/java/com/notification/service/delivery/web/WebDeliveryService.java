@@ -4,6 +4,7 @@ import com.notification.domain.notification.NotificationRecipient;
 import com.notification.dto.NotificationResponse;
 import com.notification.service.NotificationMessageResolver;
 import com.notification.service.delivery.DeliveryException;
+import com.notification.service.delivery.DeliveryResult;
 import com.notification.service.delivery.DeliveryService;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -13,8 +14,32 @@ import com.notification.domain.notification.NotificationChannel;
 import com.notification.domain.notification.Notification;
 
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service for delivering notifications via WebSocket.
@@ -34,35 +59,119 @@ public class WebDeliveryService implements DeliveryService {
     }
 
     @Override
-    public void deliver(Notification notification) throws DeliveryException {
+    public void deliver(Notification notification, NotificationRecipient notificationRecipient) throws DeliveryException {
+        NotificationMessageResolver.NotificationContent notificationContent;
         try {
-            for (NotificationRecipient notificationRecipient : notification.getRecipients()) {
-                // Use safe getter methods with fallbacks
-                String recipient = notificationRecipient.getAddress().getOrDefault(getChannel(), "");
-                if (!recipient.isEmpty()) {
-                    String userDestPrefix = getUserDestinationPrefix();
-                    String notificationTopic = getNotificationTopic();
+            notificationContent = notificationMessageResolver.resolveMessage(notificationRecipient, getChannel());
+        } catch (Exception e) {
+            throw new DeliveryException("Failed to deliver WebSocket notification", e);
+        }
+        deliver(notificationRecipient, notificationContent);
+    }
 
-                    String destination = userDestPrefix + recipient + "/" + notificationTopic;
-                    NotificationMessageResolver.NotificationContent notificationContent =
-                            notificationMessageResolver.resolveMessage(notificationRecipient.getMessage(), getChannel());
-                    // Convert to DTO for sending over the wire
-                    NotificationResponse response = new NotificationResponse(notificationRecipient,
-                            notificationContent, getChannel());
+    /**
+     * Resolves the batch's messages together, so recipients sharing a template are rendered once.
+     * Each distinct payload is serialized once and reused for every recipient; only the
+     * recipient's id and name are serialized per recipient. With topic broadcasts enabled,
+     * recipients whose web address is a topic destination share a single broadcast to that
+     * topic per distinct payload.
+     */
+    @Override
+    public DeliveryResult deliver(Notification notification, Collection<NotificationRecipient> recipients) {
+        DeliveryResult result = new DeliveryResult();
+        Map<NotificationRecipient, NotificationMessageResolver.NotificationContent> contents =
+                notificationMessageResolver.resolveMessages(recipients, getChannel(), result::addFailure);
 
-                    log.info("Sending WebSocket notification to {}, subject: {}",
-                            recipient, notificationRecipient.getMessage().getSubject());
+        Map<PayloadKey, SharedPayload> payloads = new HashMap<>();
+        Map<Broadcast, List<NotificationRecipient>> broadcasts = new LinkedHashMap<>();
+        contents.forEach((notificationRecipient, notificationContent) -> {
+            try {
+                String recipient = addressOf(notificationRecipient);
+                PayloadKey payloadKey =
+                        new PayloadKey(notificationRecipient.getMessage().getSubject(), notificationContent.getContent());
+                SharedPayload payload = payloads.computeIfAbsent(payloadKey,
+                        key -> new SharedPayload(notificationRecipient, notificationContent));
+                if (isTopic(recipient)) {
+                    // Recipients of a topic only share a broadcast if they would get the same payload
+                    broadcasts.computeIfAbsent(new Broadcast(recipient, payloadKey), key -> new ArrayList<>())
+                            .add(notificationRecipient);
+                } else {
+                    send(notificationRecipient, recipient, payload);
+                    result.addSuccess(notificationRecipient);
+                }
+            } catch (Exception e) {
+                result.addFailure(notificationRecipient, e);
+            }
+        });
 
+        broadcasts.forEach((broadcast, topicRecipients) -> {
+            try {
+                broadcast(broadcast.topic(), payloads.get(broadcast.payload()), topicRecipients.size());
+                topicRecipients.forEach(result::addSuccess);
+            } catch (Exception e) {
+                DeliveryException failure = new DeliveryException("Failed to deliver WebSocket notification", e);
+                topicRecipients.forEach(notificationRecipient -> result.addFailure(notificationRecipient, failure));
+            }
+        });
+        return result;
+    }
 
-                    messagingTemplate.convertAndSend(destination, response);
-                }
+    private void deliver(NotificationRecipient notificationRecipient,
+                         NotificationMessageResolver.NotificationContent notificationContent) throws DeliveryException {
+        String recipient = addressOf(notificationRecipient);
+        SharedPayload payload;
+        try {
+            payload = new SharedPayload(notificationRecipient, notificationContent);
+        } catch (Exception e) {
+            throw new DeliveryException("Failed to deliver WebSocket notification", e);
+        }
+        if (isTopic(recipient)) {
+            try {
+                broadcast(recipient, payload, 1);
+            } catch (Exception e) {
+                throw new DeliveryException("Failed to deliver WebSocket notification", e);
             }
+        } else {
+            send(notificationRecipient, recipient, payload);
+        }
+    }
+
+    private void send(NotificationRecipient notificationRecipient, String recipient, SharedPayload payload)
+            throws DeliveryException {
+        try {
+            log.info("Sending WebSocket notification to {}, subject: {}",
+                    recipient, notificationRecipient.getMessage().getSubject());
 
+            String destination = getUserDestinationPrefix() + recipient + "/" + getNotificationTopic();
+            messagingTemplate.send(destination,
+                    payload.forRecipient(notificationRecipient.getId(), notificationRecipient.getRecipientId()));
         } catch (Exception e) {
             throw new DeliveryException("Failed to deliver WebSocket notification", e);
         }
     }
 
+    private void broadcast(String topic, SharedPayload payload, int recipients) {
+        log.info("Broadcasting WebSocket notification to {} for {} recipients", topic, recipients);
+        messagingTemplate.send(topic, payload.forRecipient(null, topic));
+    }
+
+    private String addressOf(NotificationRecipient notificationRecipient) throws DeliveryException {
+        // Use safe getter methods with fallbacks
+        String recipient = notificationRecipient.getAddress().getOrDefault(getChannel(), "");
+        if (recipient.isEmpty()) {
+            throw new DeliveryException("No web address for recipient: " + notificationRecipient.getRecipientId());
+        }
+        return recipient;
+    }
+
+    /**
+     * @return true if topic broadcasts are enabled and the web address is a broker topic (e.g. /topic/team-42)
+     */
+    private boolean isTopic(String recipient) {
+        return webSocketProperties.isTopicBroadcastEnabled()
+                && recipient.startsWith(webSocketProperties.getTopicPrefix() + "/");
+    }
+
     private String getUserDestinationPrefix() {
         try {
             return webSocketProperties.getUserDestinationPrefix();
@@ -85,4 +194,148 @@ public class WebDeliveryService implements DeliveryService {
     public boolean isSupported() {
         return true; // WebSocket delivery is always supported if the service is available
     }
-}
\ No newline at end of file
+
+    private record PayloadKey(String subject, String content) {
+    }
+
+    private record Broadcast(String topic, PayloadKey payload) {
+    }
+
+    /**
+     * A NotificationResponse serialized once without the recipient's id and name, which are
+     * written per recipient by a generator of the same ObjectMapper and joined to the shared
+     * fields. This needs the template to convert responses with a Jackson converter; otherwise
+     * every recipient's response is converted on its own.
+     */
+    private final class SharedPayload {
+
+        private static final String ID = "id";
+        private static final String RECIPIENT = "recipient";
+
+        private final NotificationResponse response;
+        private final ObjectWriter writer;
+        private final MessageHeaders headers;
+        private final byte[] sharedFields;
+        private String idName;
+        private String recipientName;
+        private boolean writeNulls;
+
+        private SharedPayload(NotificationRecipient notificationRecipient,
+                              NotificationMessageResolver.NotificationContent notificationContent) {
+            this.response = new NotificationResponse(notificationRecipient, notificationContent, getChannel());
+            ObjectMapper objectMapper = jacksonMapper(response);
+            byte[] shared = objectMapper != null ? serializeShared(objectMapper) : null;
+            Message<?> message = shared != null ? messagingTemplate.getMessageConverter().toMessage(response, null) : null;
+            if (message != null) {
+                this.writer = objectMapper.writer();
+                this.headers = message.getHeaders();
+                this.sharedFields = shared;
+            } else {
+                this.writer = null;
+                this.headers = null;
+                this.sharedFields = null;
+            }
+        }
+
+        /**
+         * @param id        The recipient's id, or null for a broadcast
+         * @param recipient The recipient's name
+         * @return the frame for the recipient
+         */
+        private Message<?> forRecipient(Long id, String recipient) {
+            if (headers == null) {
+                NotificationResponse copy = new NotificationResponse();
+                BeanUtils.copyProperties(response, copy);
+                copy.setId(id);
+                copy.setRecipient(recipient);
+                return messagingTemplate.getMessageConverter().toMessage(copy, null);
+            }
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(sharedFields.length + 64);
+            boolean written = false;
+            try (JsonGenerator generator = writer.createGenerator(payload)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.writeStartObject();
+                if (id != null || writeNulls) {
+                    generator.writeFieldName(idName);
+                    writer.writeValue(generator, id);
+                    written = true;
+                }
+                if (recipient != null || writeNulls) {
+                    generator.writeFieldName(recipientName);
+                    writer.writeValue(generator, recipient);
+                    written = true;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to serialize WebSocket notification", e);
+            }
+            // The shared fields are a serialized object: drop its '{' and append its fields and '}'
+            if (written && !isEmptyObject(sharedFields)) {
+                payload.write(',');
+            }
+            payload.write(sharedFields, 1, sharedFields.length - 1);
+            return MessageBuilder.withPayload(payload.toByteArray()).copyHeaders(headers).build();
+        }
+
+        /**
+         * @return the ObjectMapper the template's converter serializes the response with, or null
+         */
+        private ObjectMapper jacksonMapper(NotificationResponse response) {
+            MessageConverter converter = messagingTemplate.getMessageConverter();
+            if (converter instanceof MappingJackson2MessageConverter jackson) {
+                return jackson.getObjectMapper();
+            }
+            if (converter instanceof CompositeMessageConverter composite) {
+                // A composite converter uses the first converter that produces a message
+                for (MessageConverter candidate : composite.getConverters()) {
+                    if (candidate instanceof MappingJackson2MessageConverter jackson) {
+                        return jackson.getObjectMapper();
+                    }
+                    if (candidate.toMessage(response, null) != null) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the response serialized without its id and recipient, or null if they cannot be told apart
+         */
+        private byte[] serializeShared(ObjectMapper objectMapper) {
+            BeanDescription description = objectMapper.getSerializationConfig()
+                    .introspect(objectMapper.constructType(NotificationResponse.class));
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                if (ID.equals(property.getInternalName())) {
+                    idName = property.getName();
+                } else if (RECIPIENT.equals(property.getInternalName())) {
+                    recipientName = property.getName();
+                }
+            }
+            if (idName == null || recipientName == null) {
+                return null;
+            }
+            try {
+                JsonNode tree = objectMapper.valueToTree(response);
+                if (!(tree instanceof ObjectNode fields)) {
+                    return null;
+                }
+                writeNulls = objectMapper.valueToTree(new NotificationResponse()).has(idName);
+                fields.remove(List.of(idName, recipientName));
+                byte[] shared = objectMapper.writeValueAsBytes(fields);
+                return shared.length >= 2 && shared[0] == '{' ? shared : null;
+            } catch (IOException | IllegalArgumentException e) {
+                log.debug("Cannot share the serialized WebSocket payload, converting per recipient", e);
+                return null;
+            }
+        }
+
+        private static boolean isEmptyObject(byte[] json) {
+            for (int i = 1; i < json.length - 1; i++) {
+                if (!Character.isWhitespace(json[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
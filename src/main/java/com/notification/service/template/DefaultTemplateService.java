@@ -28,12 +28,14 @@ public class DefaultTemplateService implements TemplateService {
     
     private final TemplateRepository templateRepository;
     private final List<TemplateResolver> templateResolvers;
+    private final TemplateLookupCache templateLookupCache;
     
     @Override
     @Transactional
     public Template createTemplate(Template template) {
         template.setCreatedAt(LocalDateTime.now());
         template.setUpdatedAt(LocalDateTime.now());
+        templateLookupCache.invalidate(template.getName());
         return templateRepository.save(template);
     }
     
@@ -41,9 +43,15 @@ public class DefaultTemplateService implements TemplateService {
     @Transactional
     @CacheEvict(value = "templates", key = "#template.code")
     public Template updateTemplate(Template template) {
-        if (!templateRepository.existsById(template.getId())) {
-            throw new IllegalArgumentException("Template not found with ID: " + template.getId());
+        Template existing = templateRepository.findById(template.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + template.getId()));
+        if (existing == template) {
+            // The caller changed the managed instance itself, so its previous name and content are gone
+            evictAllCached();
+        } else {
+            evictCached(existing);
         }
+        evictCached(template);
         template.setUpdatedAt(LocalDateTime.now());
         return templateRepository.save(template);
     }
@@ -77,6 +85,7 @@ public class DefaultTemplateService implements TemplateService {
     @Transactional
     @CacheEvict(value = "templates", allEntries = true)
     public void deleteTemplate(Long id) {
+        templateRepository.findById(id).ifPresent(this::evictCached);
         templateRepository.deleteById(id);
     }
     
@@ -86,6 +95,7 @@ public class DefaultTemplateService implements TemplateService {
     public Template setTemplateActive(Long id, boolean active) {
         Template template = templateRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Template not found with ID: " + id));
+        evictCached(template);
         template.setActive(active);
         template.setUpdatedAt(LocalDateTime.now());
         return templateRepository.save(template);
@@ -120,6 +130,19 @@ public class DefaultTemplateService implements TemplateService {
         return new String[] { content, subject };
     }
     
+    private void evictCached(Template template) {
+        templateLookupCache.invalidate(template.getName());
+        for (TemplateResolver resolver : templateResolvers) {
+            resolver.evict(template.getContent());
+            resolver.evict(template.getSubject());
+        }
+    }
+
+    private void evictAllCached() {
+        templateLookupCache.invalidateAll();
+        templateResolvers.forEach(TemplateResolver::evictAll);
+    }
+
     private TemplateResolver findResolver(String templateType) {
         return templateResolvers.stream()
                 .filter(resolver -> resolver.supportsTemplateType(templateType))
@@ -1,45 +1,112 @@
 package com.notification.service.template;
 
+import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.time.Duration;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.config.TemplateProperties;
+
+import freemarker.core.MarkupOutputFormat;
+import freemarker.core.OutputFormat;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
-import lombok.RequiredArgsConstructor;
+import freemarker.template.TemplateModelException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * TemplateResolver implementation using the FreeMarker template engine.
+ * Compiled templates are cached by their source text, so each distinct template
+ * is parsed once rather than once per recipient.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class FreemarkerTemplateResolver implements TemplateResolver {
-    
+
     private final Configuration freemarkerConfig;
-    
+    private final Cache<String, Template> compiledTemplates;
+
+    public FreemarkerTemplateResolver(Configuration freemarkerConfig,
+                                      TemplateProperties templateProperties,
+                                      MeterRegistry meterRegistry) {
+        this.freemarkerConfig = freemarkerConfig;
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(templateProperties.getCompiledCacheExpireAfterAccessMinutes()))
+                .recordStats();
+        if (templateProperties.getCompiledCacheMaximumWeight() > 0) {
+            builder.maximumWeight(templateProperties.getCompiledCacheMaximumWeight())
+                    .weigher((String content, Template template) -> content.length());
+        } else {
+            builder.maximumSize(templateProperties.getCompiledCacheMaximumSize());
+        }
+        this.compiledTemplates = builder.build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, compiledTemplates, "notification.templates.compiled");
+    }
+
     @Override
     public boolean supportsTemplateType(String templateType) {
         return "freemarker".equalsIgnoreCase(templateType);
     }
-    
+
     @Override
     public String processTemplate(String templateContent, Map<String, Object> data) throws TemplateException {
         try {
-            // Create a template from the provided content
-            Template template = new Template("inline_template", new StringReader(templateContent), freemarkerConfig);
-            
+            Template template = compiledTemplates.get(templateContent, this::compile);
+
             // Process the template with the provided data
             StringWriter writer = new StringWriter();
             template.process(data, writer);
-            
+
             return writer.toString();
         } catch (Exception e) {
             log.error("Failed to process FreeMarker template: {}", e.getMessage());
             throw new TemplateException("Failed to process template: " + e.getMessage(), e);
         }
     }
-} 
\ No newline at end of file
+
+    @Override
+    public UnaryOperator<String> escaper(String templateContent) throws TemplateException {
+        Template template = compiledTemplates.get(templateContent, this::compile);
+        OutputFormat outputFormat = template.getOutputFormat();
+        if (template.getAutoEscaping() && outputFormat instanceof MarkupOutputFormat<?> markup) {
+            return value -> {
+                try {
+                    return markup.escapePlainText(value);
+                } catch (TemplateModelException e) {
+                    throw new TemplateException("Failed to escape value: " + e.getMessage(), e);
+                }
+            };
+        }
+        return UnaryOperator.identity();
+    }
+
+    @Override
+    public void evict(String templateContent) {
+        if (templateContent != null) {
+            compiledTemplates.invalidate(templateContent);
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        compiledTemplates.invalidateAll();
+    }
+
+    private Template compile(String templateContent) {
+        try {
+            return new Template("inline_template", new StringReader(templateContent), freemarkerConfig);
+        } catch (IOException e) {
+            throw new TemplateException("Failed to compile template: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.notification.service.template;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.config.TemplateProperties;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.template.Template;
+import com.notification.repository.TemplateRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Caches the outcome of the template lookup chain used when resolving messages:
+ * the channel-specific template first, then the template with the same name for any channel.
+ * Misses are cached as well, so a lookup costs a single memory read once warm.
+ */
+@Component
+public class TemplateLookupCache {
+
+    private final TemplateRepository templateRepository;
+    private final Cache<LookupKey, Optional<ResolvedTemplate>> lookups;
+
+    public TemplateLookupCache(TemplateRepository templateRepository,
+                               TemplateProperties templateProperties,
+                               MeterRegistry meterRegistry) {
+        this.templateRepository = templateRepository;
+        this.lookups = Caffeine.newBuilder()
+                .maximumSize(templateProperties.getLookupCacheMaximumSize())
+                .expireAfterWrite(Duration.ofMinutes(templateProperties.getLookupCacheExpireAfterWriteMinutes()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, lookups, "notification.templates.lookup");
+    }
+
+    /**
+     * Finds the template to use for a channel, falling back to the template with the same name.
+     *
+     * @param templateName The template name
+     * @param channel      The delivery channel
+     * @return the template, if any exists
+     */
+    public Optional<ResolvedTemplate> find(String templateName, NotificationChannel channel) {
+        return lookups.get(new LookupKey(templateName, channel), this::load);
+    }
+
+    /**
+     * Drops cached lookups for a template name. When called inside a transaction the
+     * lookups are dropped again after commit so concurrent readers cannot re-cache stale rows.
+     *
+     * @param templateName The template name
+     */
+    public void invalidate(String templateName) {
+        if (templateName == null) {
+            return;
+        }
+        evict(templateName);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(templateName);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops all cached lookups.
+     */
+    public void invalidateAll() {
+        lookups.invalidateAll();
+    }
+
+    private void evict(String templateName) {
+        lookups.asMap().keySet().removeIf(key -> key.templateName.equals(templateName));
+    }
+
+    private Optional<ResolvedTemplate> load(LookupKey key) {
+        Optional<Template> template = templateRepository.findByNameAndChannel(key.templateName, key.channel);
+        if (template.isEmpty()) {
+            template = templateRepository.findByName(key.templateName);
+        }
+        return template.map(ResolvedTemplate::new);
+    }
+
+    private record LookupKey(String templateName, NotificationChannel channel) {
+    }
+
+    /**
+     * Immutable snapshot of the template fields needed to render a message.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ResolvedTemplate {
+        private final Long id;
+        private final String name;
+        private final String content;
+        private final boolean htmlEnabled;
+
+        ResolvedTemplate(Template template) {
+            this(template.getId(), template.getName(), template.getContent(), template.isHtmlEnabled());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.notification.service.template;
 
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 /**
  * Interface for template engines that process notification templates.
@@ -24,4 +25,30 @@ public interface TemplateResolver {
      * @throws TemplateException if processing fails
      */
     String processTemplate(String templateContent, Map<String, Object> data) throws TemplateException;
-} 
\ No newline at end of file
+
+    /**
+     * Returns the escaping the template applies to plain-text values it interpolates,
+     * e.g. HTML escaping for a template with an HTML output format.
+     *
+     * @param templateContent The template content
+     * @return the escaping function; identity if the template does not escape
+     * @throws TemplateException if the template cannot be compiled
+     */
+    default UnaryOperator<String> escaper(String templateContent) throws TemplateException {
+        return UnaryOperator.identity();
+    }
+
+    /**
+     * Discards any cached state held for a template, e.g. after the template was changed.
+     *
+     * @param templateContent The template content that is no longer current
+     */
+    default void evict(String templateContent) {
+    }
+
+    /**
+     * Discards all cached template state.
+     */
+    default void evictAll() {
+    }
+}
@@ -0,0 +1,139 @@
+package com.notification.service.template;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A template rendered once with the data shared by a group of recipients, leaving
+ * per-recipient slots open. Filling the slots is a string concatenation, so a group
+ * send pays for one render no matter how many recipients it has.
+ * <p>
+ * Slots are rendered as private-use marker sequences and cut out afterwards. This is
+ * only safe when the template interpolates a slot verbatim (e.g. {@code ${recipientId}});
+ * {@link #supports(String, Collection)} checks that before a skeleton is built.
+ * Slot values are escaped the way the template escapes interpolations, so a filled
+ * skeleton matches a full render of the template.
+ */
+public final class TemplateSkeleton {
+
+    private static final char MARKER = '\uE000';
+
+    private final String[] segments;
+    private final String[] slots;
+    private final UnaryOperator<String> escaper;
+    private final int staticLength;
+
+    private TemplateSkeleton(String[] segments, String[] slots, UnaryOperator<String> escaper) {
+        this.segments = segments;
+        this.slots = slots;
+        this.escaper = escaper;
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * Returns the placeholder value to put into the data model for a slot while rendering the skeleton.
+     *
+     * @param slot The slot name
+     * @return the marker sequence for the slot
+     */
+    public static String marker(String slot) {
+        return MARKER + slot + MARKER;
+    }
+
+    /**
+     * Checks that the template only uses the given slots as plain interpolations.
+     *
+     * @param templateContent The template source
+     * @param slots           The slot names
+     * @return true if a skeleton rendered from this template can be filled safely
+     */
+    public static boolean supports(String templateContent, Collection<String> slots) {
+        if (templateContent.indexOf(MARKER) >= 0) {
+            return false;
+        }
+        for (String slot : slots) {
+            if (count(templateContent, slot) != count(templateContent, "${" + slot + "}")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cuts a rendered template into static segments and slots.
+     *
+     * @param rendered The output of rendering the template with {@link #marker(String)} slot values
+     * @param slots    The slot names
+     * @param escaper  The escaping the template applies to interpolated values
+     * @return the skeleton, or null if the output contains markers that do not form a known slot
+     */
+    public static TemplateSkeleton parse(String rendered, Collection<String> slots, UnaryOperator<String> escaper) {
+        List<String> segments = new ArrayList<>();
+        List<String> slotOrder = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = rendered.indexOf(MARKER, position)) >= 0) {
+            int end = rendered.indexOf(MARKER, start + 1);
+            if (end < 0) {
+                return null;
+            }
+            String slot = rendered.substring(start + 1, end);
+            if (!slots.contains(slot)) {
+                return null;
+            }
+            segments.add(rendered.substring(position, start));
+            slotOrder.add(slot);
+            position = end + 1;
+        }
+        segments.add(rendered.substring(position));
+        return new TemplateSkeleton(segments.toArray(new String[0]), slotOrder.toArray(new String[0]), escaper);
+    }
+
+    /**
+     * @return true if the skeleton has no slots and renders identically for every recipient
+     */
+    public boolean isStatic() {
+        return slots.length == 0;
+    }
+
+    /**
+     * Produces the final content for one recipient.
+     *
+     * @param slotValues Unescaped values for the skeleton's slots
+     * @return the rendered content
+     */
+    public String fill(Map<String, String> slotValues) {
+        if (isStatic()) {
+            return segments[0];
+        }
+        String[] values = new String[slots.length];
+        int length = staticLength;
+        for (int i = 0; i < slots.length; i++) {
+            String value = slotValues.get(slots[i]);
+            values[i] = value != null ? escaper.apply(value) : "";
+            length += values[i].length();
+        }
+        StringBuilder content = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            content.append(segments[i]).append(values[i]);
+        }
+        return content.append(segments[slots.length]).toString();
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        int index = 0;
+        while ((index = text.indexOf(token, index)) >= 0) {
+            count++;
+            index += token.length();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,190 @@
+package com.notification.service.throttle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notification.config.NotificationProperties;
+import com.notification.config.ThrottlingProperties;
+import com.notification.config.ThrottlingProperties.Limit;
+import com.notification.config.ThrottlingProperties.Mode;
+import com.notification.domain.notification.NotificationChannel;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rate limits deliveries with a global token bucket, one per configured channel and,
+ * optionally, one per sender. A delivery must obtain permits from every applicable
+ * bucket; if any of them cannot grant them in time the others are refunded.
+ * <p>
+ * Publishes {@code notification.throttle.throttled} (deliveries that had to wait) and
+ * {@code notification.throttle.shed} (deliveries that were dropped), tagged with the channel.
+ */
+@Component
+public class NotificationThrottler implements DisposableBean {
+
+    private final boolean enabled;
+    private final ThrottlingProperties properties;
+    private final TokenBucket global;
+    private final int globalBurst;
+    private final Map<NotificationChannel, TokenBucket> channelBuckets = new EnumMap<>(NotificationChannel.class);
+    private final Cache<String, TokenBucket> senderBuckets;
+    private final Map<NotificationChannel, Counter> throttled = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Counter> shed = new EnumMap<>(NotificationChannel.class);
+    private final ScheduledExecutorService scheduler;
+
+    public NotificationThrottler(NotificationProperties notificationProperties,
+                                 ThrottlingProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.enabled = notificationProperties.isEnableThrottling();
+        this.properties = properties;
+        this.globalBurst = properties.getGlobalBurst() > 0 ?
+                properties.getGlobalBurst() : Math.max(1, notificationProperties.getMaxNotificationsPerSecond());
+        this.global = enabled && notificationProperties.getMaxNotificationsPerSecond() > 0 ?
+                new TokenBucket(notificationProperties.getMaxNotificationsPerSecond(), globalBurst) : null;
+
+        for (Map.Entry<NotificationChannel, Limit> limit : properties.getChannels().entrySet()) {
+            if (limit.getValue().isEnabled()) {
+                channelBuckets.put(limit.getKey(),
+                        new TokenBucket(limit.getValue().getRatePerSecond(), limit.getValue().getEffectiveBurst()));
+            }
+        }
+        this.senderBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedSenders())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            throttled.put(channel, Counter.builder("notification.throttle.throttled")
+                    .description("Deliveries delayed by a rate limit")
+                    .tag("channel", channel.name())
+                    .register(meterRegistry));
+            shed.put(channel, Counter.builder("notification.throttle.shed")
+                    .description("Deliveries dropped by a rate limit")
+                    .tag("channel", channel.name())
+                    .register(meterRegistry));
+        }
+
+        this.scheduler = enabled ?
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("notification-throttle-")) : null;
+    }
+
+    /**
+     * @return true if notification.enable-throttling is set
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param channel The delivery channel
+     * @return what happens to the channel's deliveries that exceed a limit
+     */
+    public Mode getMode(NotificationChannel channel) {
+        return properties.getMode(channel);
+    }
+
+    /**
+     * Returns the largest number of deliveries that may be permitted at once, so batches can be
+     * split into chunks that never exceed a provider's burst allowance.
+     *
+     * @param channel The delivery channel
+     * @return the chunk size
+     */
+    public int getChunkSize(NotificationChannel channel) {
+        int chunkSize = global != null ? globalBurst : Integer.MAX_VALUE;
+        Limit channelLimit = properties.getChannels().get(channel);
+        if (channelLimit != null && channelLimit.isEnabled()) {
+            chunkSize = Math.min(chunkSize, channelLimit.getEffectiveBurst());
+        }
+        if (properties.getSender().isEnabled()) {
+            chunkSize = Math.min(chunkSize, properties.getSender().getEffectiveBurst());
+        }
+        return chunkSize;
+    }
+
+    /**
+     * Reserves permits for deliveries.
+     *
+     * @param channel The delivery channel
+     * @param sender  The sender (tenant), may be null
+     * @param permits Number of deliveries
+     * @return nanoseconds to wait before delivering
+     * @throws ThrottledException if the deliveries are shed
+     */
+    public long reserve(NotificationChannel channel, String sender, int permits) {
+        long maxWait = getMode(channel) == Mode.SHED ? 0 : TimeUnit.MILLISECONDS.toNanos(properties.getMaxWaitMs());
+
+        TokenBucket senderBucket = sender != null && properties.getSender().isEnabled() ?
+                senderBuckets.get(sender, key -> new TokenBucket(properties.getSender().getRatePerSecond(),
+                        properties.getSender().getEffectiveBurst())) : null;
+        TokenBucket[] buckets = {global, channelBuckets.get(channel), senderBucket};
+
+        long wait = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] == null) {
+                continue;
+            }
+            long bucketWait = buckets[i].reserve(permits, maxWait);
+            if (bucketWait < 0) {
+                for (int j = 0; j < i; j++) {
+                    if (buckets[j] != null) {
+                        buckets[j].refund(permits);
+                    }
+                }
+                shed.get(channel).increment(permits);
+                throw new ThrottledException("Rate limit exceeded for channel " + channel);
+            }
+            wait = Math.max(wait, bucketWait);
+        }
+
+        if (wait > 0) {
+            throttled.get(channel).increment(permits);
+        }
+        return wait;
+    }
+
+    /**
+     * Starts a task once a reserved wait has passed, without holding a thread meanwhile.
+     *
+     * @param delayNanos The wait returned by {@link #reserve}
+     * @param task       Starts the delivery and returns its result
+     * @return the delivery result
+     */
+    public <T> CompletableFuture<T> schedule(long delayNanos, Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            try {
+                task.get().whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.notification.service.throttle;
+
+import com.notification.service.delivery.DeliveryException;
+
+/**
+ * Exception thrown when a delivery is shed because it exceeds a rate limit.
+ */
+public class ThrottledException extends DeliveryException {
+
+    public ThrottledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.notification.service.throttle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: the only state is
+ * the theoretical time at which the bucket is full again, advanced with a single CAS.
+ * Permits are reserved rather than taken, so a caller learns how long to wait instead of
+ * having to poll.
+ */
+public final class TokenBucket {
+
+    private final long nanosPerPermit;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.nanosPerPermit = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = nanosPerPermit * Math.max(1, burst);
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Reserves permits if they become available within the given wait.
+     *
+     * @param permits      Number of permits
+     * @param maxWaitNanos Longest acceptable wait
+     * @return nanoseconds to wait before using the permits, or -1 if that exceeds maxWaitNanos
+     *         (nothing is reserved then)
+     */
+    public long reserve(int permits, long maxWaitNanos) {
+        long cost = nanosPerPermit * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long start = current - now > 0 ? current : now;
+            long next = start + cost;
+            long wait = Math.max(0, next - now - burstNanos);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Returns permits reserved by a delivery that did not go ahead.
+     *
+     * @param permits Number of permits
+     */
+    public void refund(int permits) {
+        fullAt.addAndGet(-nanosPerPermit * permits);
+    }
+}
@@ -0,0 +1,186 @@
+package com.notification.annotation;
+
+import ch.qos.logback.classic.Level;
+import com.notification.config.AspectProperties;
+import com.notification.config.NotificationProperties;
+import com.notification.service.NotificationService;
+import com.notification.service.builder.NotificationRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Value;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * JMH benchmark of the overhead {@link NotificationAspect} adds to a @Notify method, and of
+ * evaluating its cached plan against parsing its expressions on every call, as the aspect did
+ * before plans. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 20, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotifyAdviceBenchmark {
+
+    private static final String CONDITION = "#order.total > 0";
+    private static final String RECIPIENTS = "#order.email";
+    private static final String TEMPLATE_DATA = "orderId=#order.id, total=#result";
+
+    private final Order order = new Order("order-1", "alice@example.com", 4200);
+    private Orders unadvised;
+    private Orders advised;
+    private Expression condition;
+    private Expression recipients;
+    private Map<String, Expression> templateData;
+    private StandardEvaluationContext contextPrototype;
+
+    @Test
+    void advisedCallsOnlyPayForEvaluation() throws RunnerException {
+        Map<String, Double> nanos = new TreeMap<>();
+        for (RunResult result : new Runner(new OptionsBuilder()
+                .include(NotifyAdviceBenchmark.class.getName())
+                .build()).run()) {
+            nanos.put(result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    result.getPrimaryResult().getScore());
+        }
+        System.out.printf("@Notify call: %,.0f ns unadvised, %,.0f ns advised; "
+                        + "expressions: %,.0f ns from the cached plan, %,.0f ns parsed per call%n",
+                nanos.get("unadvised"), nanos.get("advised"), nanos.get("planEvaluation"), nanos.get("parsePerCall"));
+
+        assertThat(nanos.get("parsePerCall")).isGreaterThan(nanos.get("planEvaluation") * 2);
+    }
+
+    @Setup
+    public void setUp() {
+        // Keep the aspect's per-call logging out of the measurement output
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(NotificationAspect.class)).setLevel(Level.WARN);
+        AspectProperties aspectProperties = new AspectProperties();
+        NotificationAspect aspect = new NotificationAspect(new SentNotifications(), new NotificationProperties(),
+                aspectProperties, mock(ApplicationContext.class, withSettings().stubOnly()),
+                new DefaultNotificationUserContext(), new SimpleMeterRegistry(),
+                mock(PlatformTransactionManager.class, withSettings().stubOnly()));
+
+        unadvised = new Orders();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new Orders());
+        proxyFactory.addAspect(aspect);
+        advised = proxyFactory.getProxy();
+
+        ExpressionParser parser = new SpelExpressionParser(new SpelParserConfiguration(
+                aspectProperties.getSpelCompilerMode(), NotifyAdviceBenchmark.class.getClassLoader()));
+        condition = parser.parseExpression(CONDITION);
+        recipients = parser.parseExpression(RECIPIENTS);
+        templateData = new HashMap<>();
+        for (String pair : TEMPLATE_DATA.split(",")) {
+            String[] keyValue = pair.trim().split("=");
+            templateData.put(keyValue[0].trim(), parser.parseExpression(keyValue[1].trim()));
+        }
+        contextPrototype = new StandardEvaluationContext();
+        contextPrototype.applyDelegatesTo(new StandardEvaluationContext());
+    }
+
+    @Benchmark
+    public long unadvised() {
+        return unadvised.place(order);
+    }
+
+    @Benchmark
+    public long advised() {
+        return advised.place(order);
+    }
+
+    @Benchmark
+    public Map<String, Object> planEvaluation() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        contextPrototype.applyDelegatesTo(context);
+        return evaluate(context, condition, recipients, templateData);
+    }
+
+    @Benchmark
+    public Map<String, Object> parsePerCall() {
+        ExpressionParser parser = new SpelExpressionParser();
+        Map<String, Expression> parsed = new HashMap<>();
+        for (String pair : TEMPLATE_DATA.split(",")) {
+            String[] keyValue = pair.trim().split("=");
+            parsed.put(keyValue[0].trim(), parser.parseExpression(keyValue[1].trim()));
+        }
+        return evaluate(new StandardEvaluationContext(), parser.parseExpression(CONDITION),
+                parser.parseExpression(RECIPIENTS), parsed);
+    }
+
+    private Map<String, Object> evaluate(StandardEvaluationContext context, Expression condition,
+                                         Expression recipients, Map<String, Expression> templateData) {
+        context.setVariable("order", order);
+        context.setVariable("result", order.getTotal());
+        Map<String, Object> values = new HashMap<>();
+        if (Boolean.TRUE.equals(condition.getValue(context, Boolean.class))) {
+            values.put("recipients", recipients.getValue(context));
+            templateData.forEach((key, value) -> values.put(key, value.getValue(context)));
+        }
+        return values;
+    }
+
+    /**
+     * Accepts every request without the per-call bookkeeping of a mock.
+     */
+    private static class SentNotifications extends NotificationService {
+
+        private SentNotifications() {
+            super(null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public String sendNotification(NotificationRequest request) {
+            return "n-1";
+        }
+    }
+
+    @Value
+    public static class Order {
+        String id;
+        String email;
+        long total;
+    }
+
+    public static class Orders {
+
+        @Notify(successTemplate = "order-placed", errorTemplate = "order-failed",
+                condition = CONDITION, recipients = RECIPIENTS, templateData = TEMPLATE_DATA)
+        public long place(Order order) {
+            return order.getTotal();
+        }
+    }
+}
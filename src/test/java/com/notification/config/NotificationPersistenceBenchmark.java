@@ -0,0 +1,133 @@
+package com.notification.config;
+
+import com.notification.domain.notification.DeliveryAttempt;
+import com.notification.domain.notification.Notification;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationMessage;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.domain.notification.NotificationRecipient;
+import com.notification.domain.notification.NotificationStatus;
+import com.notification.domain.notification.NotificationType;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures rows/sec for persisting a 10k-recipient notification the way saveNotification does,
+ * with the batching settings of {@link PersistenceConfig} and with batching turned off.
+ * Runs against in-memory H2, so the gap understates what batching saves over a network. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class NotificationPersistenceBenchmark {
+
+    private static final int RECIPIENTS = 10_000;
+    private static final int ITERATIONS = 5;
+    private static final Set<NotificationChannel> CHANNELS = EnumSet.of(NotificationChannel.EMAIL, NotificationChannel.SMS);
+
+    @Test
+    void batchedInsertsOfATenThousandRecipientNotification() {
+        Map<String, Object> batched = new HashMap<>();
+        new PersistenceConfig().notificationBatchingCustomizer(new NotificationProperties()).customize(batched);
+        Map<String, Object> unbatched = Map.of(AvailableSettings.STATEMENT_BATCH_SIZE, 1);
+
+        // Warm up the JIT before measuring either configuration
+        measure("warm-up", batched);
+        Result slow = measure("unbatched", unbatched);
+        Result fast = measure("batched", batched);
+        System.out.printf("Persist %,d recipients: %,.0f rows/sec in %,d statements per notification unbatched, "
+                        + "%,.0f rows/sec in %,d batched%n",
+                RECIPIENTS, slow.rowsPerSecond(), slow.statements(), fast.rowsPerSecond(), fast.statements());
+
+        assertThat(fast.statements()).isLessThan(slow.statements() / 10);
+    }
+
+    private Result measure(String name, Map<String, Object> settings) {
+        try (SessionFactory sessionFactory = sessionFactory(name, settings)) {
+            Statistics statistics = sessionFactory.getStatistics();
+            long elapsed = 0;
+            long rows = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                Notification notification = notification(name + "-" + i);
+                statistics.clear();
+                long start = System.nanoTime();
+                sessionFactory.inTransaction(session -> session.persist(notification));
+                elapsed += System.nanoTime() - start;
+                assertThat(statistics.getEntityInsertCount()).isEqualTo(1 + 3L * RECIPIENTS);
+                // Entity rows plus the channel and address element collections
+                rows += statistics.getEntityInsertCount() + CHANNELS.size() + (long) RECIPIENTS * CHANNELS.size();
+            }
+            return new Result(rows * 1e9 / elapsed, statistics.getPrepareStatementCount());
+        }
+    }
+
+    private static SessionFactory sessionFactory(String name, Map<String, Object> settings) {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(Notification.class)
+                .addAnnotatedClass(NotificationRecipient.class)
+                .addAnnotatedClass(NotificationMessage.class)
+                .addAnnotatedClass(DeliveryAttempt.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:" + name
+                        + ";DB_CLOSE_DELAY=-1;INIT=CREATE DOMAIN IF NOT EXISTS JSONB AS JSON")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.GENERATE_STATISTICS, "true")
+                .setProperty(AvailableSettings.LOG_SESSION_METRICS, "false");
+        settings.forEach((key, value) -> configuration.setProperty(key, String.valueOf(value)));
+        return configuration.buildSessionFactory();
+    }
+
+    private static Notification notification(String notificationId) {
+        LocalDateTime now = LocalDateTime.now();
+        Notification notification = new Notification();
+        notification.setNotificationId(notificationId);
+        notification.setType(NotificationType.MARKETING);
+        notification.setStatus(NotificationStatus.PENDING);
+        notification.setPriority(NotificationPriority.LOW);
+        notification.setSender("benchmark");
+        notification.setChannels(CHANNELS);
+        notification.setCreatedAt(now);
+        notification.setCreatedBy("benchmark");
+        for (int i = 0; i < RECIPIENTS; i++) {
+            NotificationMessage message = new NotificationMessage();
+            message.setSubject("Spring sale");
+            message.setRawMessage("Everything is 20% off this week.");
+            // The jsonb binder only speaks PostgreSQL; raw messages leave template data null
+            message.setTemplateData(null);
+            message.setCreatedAt(now);
+            message.setCreatedBy("benchmark");
+
+            NotificationRecipient recipient = new NotificationRecipient();
+            recipient.setRecipientId("user-" + i);
+            recipient.setNotification(notification);
+            recipient.setMessage(message);
+            recipient.setCreatedAt(now);
+            recipient.setCreatedBy("benchmark");
+            for (NotificationChannel channel : CHANNELS) {
+                recipient.getAddress().put(channel, "user-" + i + "@example.com");
+            }
+
+            DeliveryAttempt attempt = new DeliveryAttempt();
+            attempt.setNotification(notification);
+            attempt.setRecipient(recipient);
+            attempt.setChannel(NotificationChannel.EMAIL);
+            attempt.setCreatedAt(now);
+            attempt.setCreatedBy("benchmark");
+            recipient.getDeliveryAttempts().add(attempt);
+            notification.getRecipients().add(recipient);
+        }
+        return notification;
+    }
+
+    private record Result(double rowsPerSecond, long statements) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.notification.scheduler;
+
+import com.notification.config.RetryProperties;
+import com.notification.config.SchedulerProperties;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.service.NotificationService;
+import com.notification.service.RetryService;
+import com.notification.service.delivery.DeliveryExecutors;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationSchedulerTest {
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ScheduledNotificationService scheduledNotificationService = mock(ScheduledNotificationService.class);
+    private final RetryService retryService = mock(RetryService.class);
+    private final DeliveryExecutors deliveryExecutors = mock(DeliveryExecutors.class);
+    private final RetryProperties retryProperties = new RetryProperties();
+    private final NotificationScheduler scheduler = new NotificationScheduler(notificationService,
+            scheduledNotificationService, retryService, retryProperties, deliveryExecutors, new SchedulerProperties());
+
+    @Test
+    void releasesTheClaimsOfNotificationsTheExecutorRefuses() {
+        when(scheduledNotificationService.claimDue(any(), anyInt()))
+                .thenReturn(List.of(overdue("n-1"), overdue("n-2"), overdue("n-3")));
+        when(deliveryExecutors.execute(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenThrow(new RejectedExecutionException("Saturated"));
+
+        scheduler.processScheduledNotifications();
+
+        verify(scheduledNotificationService).release(List.of("n-2", "n-3"));
+    }
+
+    @Test
+    void releasesTheClaimOfADiscardedNotification() {
+        when(scheduledNotificationService.claimDue(any(), anyInt())).thenReturn(List.of(overdue("n-1")));
+        CompletableFuture<Void> discarded = new CompletableFuture<>();
+        discarded.cancel(false);
+        when(deliveryExecutors.execute(any(), any())).thenReturn(discarded);
+
+        scheduler.processScheduledNotifications();
+
+        verify(scheduledNotificationService).release(List.of("n-1"));
+    }
+
+    @Test
+    void stopsClaimingRetriesOnceTheExecutorRefusesOne() {
+        retryProperties.setBatchSize(3);
+        when(retryService.claimDueRetries(3)).thenReturn(List.of(1L, 2L, 3L));
+        when(deliveryExecutors.tryExecute(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenThrow(new RejectedExecutionException("Saturated"));
+
+        scheduler.processRetryNotifications();
+
+        verify(retryService, times(1)).claimDueRetries(3);
+        verify(deliveryExecutors, times(2)).tryExecute(any(), any());
+        verify(retryService).releaseRetries(List.of(2L, 3L));
+        verify(deliveryExecutors, never()).execute(any(), any());
+    }
+
+    private static ScheduledNotification overdue(String notificationId) {
+        return new ScheduledNotification(notificationId, LocalDateTime.now().minusMinutes(1), NotificationPriority.NORMAL);
+    }
+}
@@ -0,0 +1,79 @@
+package com.notification.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final long START_MS = 1_000_000;
+
+    @Test
+    void firesEachEntryOnceAtTheTickItIsDue() {
+        // Three levels covering 5.12s, so the later entries start out in the overflow list
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK_MS, 8, 5_000, START_MS);
+        Random random = new Random(42);
+        Map<Integer, Long> dueAt = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            long due = START_MS + 1 + random.nextInt(20_000);
+            assertThat(wheel.schedule(due, i)).isTrue();
+            dueAt.put(i, due);
+        }
+        assertThat(wheel.size()).isEqualTo(2_000);
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = START_MS; now <= START_MS + 21_000; now++) {
+            for (Integer value : wheel.advance(now)) {
+                assertThat(firedAt.put(value, now)).as("entry %d fired twice", value).isNull();
+            }
+        }
+
+        assertThat(firedAt).hasSize(2_000);
+        assertThat(wheel.size()).isZero();
+        dueAt.forEach((value, due) ->
+                assertThat(firedAt.get(value)).as("entry %d", value).isEqualTo(ceilToTick(due)));
+    }
+
+    @Test
+    void returnsEntriesInDueOrderWhenSeveralTicksPass() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, 8, 5_000, START_MS);
+        wheel.schedule(START_MS + 900, "third");
+        wheel.schedule(START_MS + 20, "first");
+        wheel.schedule(START_MS + 300, "second");
+
+        assertThat(wheel.advance(START_MS + 1_000)).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void refusesEntriesThatAreAlreadyDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, 8, 5_000, START_MS);
+
+        assertThat(wheel.schedule(START_MS, "now")).isFalse();
+        assertThat(wheel.schedule(START_MS - 500, "past")).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void clearRemovesEntriesOnEveryLevelAndTheOverflow() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, 8, 5_000, START_MS);
+        wheel.schedule(START_MS + 20, "level 0");
+        wheel.schedule(START_MS + 2_000, "level 2");
+        wheel.schedule(START_MS + 60_000, "overflow");
+
+        List<String> cleared = wheel.clear();
+
+        assertThat(cleared).containsExactlyInAnyOrder("level 0", "level 2", "overflow");
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.advance(START_MS + 120_000)).isEmpty();
+    }
+
+    private static long ceilToTick(long ms) {
+        return Math.floorDiv(ms + TICK_MS - 1, TICK_MS) * TICK_MS;
+    }
+}
@@ -0,0 +1,200 @@
+package com.notification.service;
+
+import com.notification.config.DeliveryExecutorProperties;
+import com.notification.config.MetricsProperties;
+import com.notification.config.ThrottlingProperties;
+import com.notification.domain.notification.DeliveryAttempt;
+import com.notification.domain.notification.Notification;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.domain.notification.NotificationRecipient;
+import com.notification.domain.notification.NotificationType;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.service.delivery.DeliveryException;
+import com.notification.service.delivery.DeliveryExecutors;
+import com.notification.service.delivery.DeliveryResult;
+import com.notification.service.delivery.DeliveryService;
+import com.notification.service.delivery.DeliveryServiceFactory;
+import com.notification.service.throttle.NotificationThrottler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatcherTest {
+
+    private static final Set<NotificationChannel> CHANNELS =
+            EnumSet.of(NotificationChannel.EMAIL, NotificationChannel.SMS, NotificationChannel.PUSH, NotificationChannel.WEB);
+
+    private final Map<String, AtomicInteger> deliveries = new ConcurrentHashMap<>();
+    private final Set<String> failing = ConcurrentHashMap.newKeySet();
+    private final RetryService retryService = mock(RetryService.class);
+    private final NotificationThrottler throttler = mock(NotificationThrottler.class);
+    private DeliveryExecutors deliveryExecutors;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        deliveryExecutors = new DeliveryExecutors(new DeliveryExecutorProperties(), meterRegistry);
+        when(throttler.isEnabled()).thenReturn(false);
+        DeliveryServiceFactory factory = mock(DeliveryServiceFactory.class);
+        for (NotificationChannel channel : CHANNELS) {
+            when(factory.getDeliveryService(channel)).thenReturn(new CountingDeliveryService(channel));
+        }
+        dispatcher = new NotificationDispatcher(factory, deliveryExecutors, throttler, retryService,
+                new NotificationMetrics(meterRegistry, new MetricsProperties()));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        deliveryExecutors.destroy();
+    }
+
+    @Test
+    void deliversEveryRecipientChannelPairExactlyOnce() {
+        int recipients = 250;
+        Notification notification = notification(recipients, CHANNELS);
+
+        Map<NotificationChannel, DeliveryResult> results = dispatcher.send(notification);
+        dispatcher.record(notification, results);
+
+        assertThat(deliveries).hasSize(recipients * CHANNELS.size());
+        assertThat(deliveries.values()).allMatch(count -> count.get() == 1);
+        assertThat(attempts(notification)).isEqualTo(recipients * CHANNELS.size());
+        for (NotificationRecipient recipient : notification.getRecipients()) {
+            assertThat(recipient.getDeliveryAttempts())
+                    .extracting(DeliveryAttempt::getChannel)
+                    .containsExactlyInAnyOrderElementsOf(CHANNELS);
+        }
+    }
+
+    @Test
+    void skipsRecipientsWithoutAnAddressForTheChannel() {
+        Notification notification = notification(10, CHANNELS);
+        NotificationRecipient smsOnly = notification.getRecipients().iterator().next();
+        smsOnly.getAddress().keySet().retainAll(Set.of(NotificationChannel.SMS));
+
+        dispatcher.record(notification, dispatcher.send(notification));
+
+        assertThat(deliveries).hasSize(9 * CHANNELS.size() + 1);
+        assertThat(smsOnly.getDeliveryAttempts())
+                .extracting(DeliveryAttempt::getChannel)
+                .containsExactly(NotificationChannel.SMS);
+    }
+
+    @Test
+    void recordsFailuresPerRecipientAndSchedulesTheirRetries() {
+        Notification notification = notification(20, CHANNELS);
+        NotificationRecipient rejected = notification.getRecipients().iterator().next();
+        failing.add(key(rejected, NotificationChannel.EMAIL));
+
+        Map<NotificationChannel, DeliveryResult> results = dispatcher.send(notification);
+        dispatcher.record(notification, results);
+
+        assertThat(results.get(NotificationChannel.EMAIL).getFailures()).containsOnlyKeys(rejected);
+        assertThat(results.get(NotificationChannel.EMAIL).getDelivered()).hasSize(19);
+        assertThat(attempts(notification)).isEqualTo(20 * CHANNELS.size());
+        verify(retryService, times(1)).scheduleRetry(any(DeliveryAttempt.class), any(Notification.class));
+    }
+
+    @Test
+    void queuedChunksDoNotHoldTheCaller() throws Exception {
+        when(throttler.isEnabled()).thenReturn(true);
+        when(throttler.getMode(NotificationChannel.EMAIL)).thenReturn(ThrottlingProperties.Mode.QUEUE);
+        when(throttler.getChunkSize(NotificationChannel.EMAIL)).thenReturn(5);
+        when(throttler.reserve(eq(NotificationChannel.EMAIL), any(), anyInt())).thenReturn(0L, TimeUnit.SECONDS.toNanos(30));
+        AtomicReference<Supplier<CompletableFuture<DeliveryResult>>> queued = new AtomicReference<>();
+        CompletableFuture<DeliveryResult> released = new CompletableFuture<>();
+        when(throttler.schedule(anyLong(), any())).thenAnswer(invocation -> {
+            queued.set(invocation.getArgument(1));
+            return released;
+        });
+        Notification notification = notification(10, EnumSet.of(NotificationChannel.EMAIL));
+
+        CompletableFuture<Map<NotificationChannel, DeliveryResult>> results = dispatcher.sendAsync(notification);
+
+        assertThat(results).isNotDone();
+        queued.get().get().whenComplete((result, e) -> released.complete(result));
+        assertThat(results.get(5, TimeUnit.SECONDS).get(NotificationChannel.EMAIL).getDelivered()).hasSize(10);
+        assertThat(deliveries).hasSize(10);
+    }
+
+    private Notification notification(int recipients, Set<NotificationChannel> channels) {
+        Notification notification = new Notification();
+        notification.setNotificationId(UUID.randomUUID().toString());
+        notification.setType(NotificationType.INFO);
+        notification.setPriority(NotificationPriority.NORMAL);
+        notification.setSender("test");
+        notification.setChannels(channels);
+        for (int i = 0; i < recipients; i++) {
+            NotificationRecipient recipient = new NotificationRecipient();
+            recipient.setId((long) i);
+            recipient.setRecipientId("user-" + i);
+            recipient.setNotification(notification);
+            for (NotificationChannel channel : channels) {
+                recipient.getAddress().put(channel, channel.name().toLowerCase() + "-" + i);
+            }
+            notification.getRecipients().add(recipient);
+        }
+        return notification;
+    }
+
+    private static int attempts(Notification notification) {
+        return notification.getRecipients().stream().mapToInt(recipient -> recipient.getDeliveryAttempts().size()).sum();
+    }
+
+    private static String key(NotificationRecipient recipient, NotificationChannel channel) {
+        return recipient.getRecipientId() + "/" + channel;
+    }
+
+    private class CountingDeliveryService implements DeliveryService {
+
+        private final NotificationChannel channel;
+
+        CountingDeliveryService(NotificationChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public boolean isSupported() {
+            return true;
+        }
+
+        @Override
+        public NotificationChannel getChannel() {
+            return channel;
+        }
+
+        @Override
+        public void deliver(Notification notification, NotificationRecipient recipient) {
+            String key = key(recipient, channel);
+            deliveries.computeIfAbsent(key, ignored -> new AtomicInteger()).incrementAndGet();
+            if (failing.contains(key)) {
+                throw new DeliveryException("Rejected by provider");
+            }
+        }
+    }
+}
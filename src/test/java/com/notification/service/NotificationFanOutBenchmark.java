@@ -0,0 +1,147 @@
+package com.notification.service;
+
+import com.notification.config.DeliveryExecutorProperties;
+import com.notification.config.MetricsProperties;
+import com.notification.domain.notification.Notification;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.domain.notification.NotificationRecipient;
+import com.notification.domain.notification.NotificationType;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.service.delivery.DeliveryExecutors;
+import com.notification.service.delivery.DeliveryResult;
+import com.notification.service.delivery.DeliveryService;
+import com.notification.service.delivery.DeliveryServiceFactory;
+import com.notification.service.throttle.NotificationThrottler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Regression benchmark for group sends: the cost of a fan-out, including recording its
+ * delivery attempts, must grow linearly with the number of recipients. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class NotificationFanOutBenchmark {
+
+    private static final Set<NotificationChannel> CHANNELS =
+            EnumSet.of(NotificationChannel.EMAIL, NotificationChannel.SMS, NotificationChannel.PUSH, NotificationChannel.WEB);
+    private static final int ITERATIONS = 10;
+
+    private final AtomicLong deliveries = new AtomicLong();
+    private DeliveryExecutors deliveryExecutors;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        deliveryExecutors = new DeliveryExecutors(new DeliveryExecutorProperties(), meterRegistry);
+        NotificationThrottler throttler = mock(NotificationThrottler.class);
+        DeliveryServiceFactory factory = mock(DeliveryServiceFactory.class);
+        for (NotificationChannel channel : CHANNELS) {
+            when(factory.getDeliveryService(channel)).thenReturn(new NoOpDeliveryService(channel));
+        }
+        dispatcher = new NotificationDispatcher(factory, deliveryExecutors, throttler, mock(RetryService.class),
+                new NotificationMetrics(meterRegistry, new MetricsProperties()));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        deliveryExecutors.destroy();
+    }
+
+    @Test
+    void fanOutScalesLinearlyWithRecipients() {
+        // Warm up the JIT on the largest size first
+        measure(10_000);
+
+        double perPairSmall = measure(1_000);
+        double perPairLarge = measure(10_000);
+        System.out.printf("Fan-out: %.0f ns per (recipient, channel) pair at 1k recipients, %.0f ns at 10k%n",
+                perPairSmall, perPairLarge);
+
+        // Linear scaling keeps the per-pair cost flat; an N x M regression would multiply it by ten
+        assertThat(perPairLarge).isLessThan(perPairSmall * 3);
+    }
+
+    /**
+     * @return nanoseconds per (recipient, channel) pair
+     */
+    private double measure(int recipients) {
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            Notification notification = notification(recipients);
+            deliveries.set(0);
+            long start = System.nanoTime();
+            dispatcher.record(notification, dispatcher.send(notification));
+            elapsed += System.nanoTime() - start;
+            assertThat(deliveries.get()).isEqualTo((long) recipients * CHANNELS.size());
+        }
+        return (double) elapsed / ITERATIONS / ((long) recipients * CHANNELS.size());
+    }
+
+    private static Notification notification(int recipients) {
+        Notification notification = new Notification();
+        notification.setNotificationId("benchmark");
+        notification.setType(NotificationType.MARKETING);
+        notification.setPriority(NotificationPriority.LOW);
+        notification.setSender("benchmark");
+        notification.setChannels(CHANNELS);
+        for (int i = 0; i < recipients; i++) {
+            NotificationRecipient recipient = new NotificationRecipient();
+            recipient.setId((long) i);
+            recipient.setRecipientId("user-" + i);
+            recipient.setNotification(notification);
+            for (NotificationChannel channel : CHANNELS) {
+                recipient.getAddress().put(channel, "address-" + i);
+            }
+            notification.getRecipients().add(recipient);
+        }
+        return notification;
+    }
+
+    private class NoOpDeliveryService implements DeliveryService {
+
+        private final NotificationChannel channel;
+
+        NoOpDeliveryService(NotificationChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public boolean isSupported() {
+            return true;
+        }
+
+        @Override
+        public NotificationChannel getChannel() {
+            return channel;
+        }
+
+        @Override
+        public void deliver(Notification notification, NotificationRecipient recipient) {
+            deliveries.incrementAndGet();
+        }
+
+        @Override
+        public DeliveryResult deliver(Notification notification, Collection<NotificationRecipient> recipients) {
+            DeliveryResult result = new DeliveryResult();
+            for (NotificationRecipient recipient : recipients) {
+                deliver(notification, recipient);
+                result.addSuccess(recipient);
+            }
+            return result;
+        }
+    }
+}
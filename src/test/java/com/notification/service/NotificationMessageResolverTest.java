@@ -0,0 +1,83 @@
+package com.notification.service;
+
+import com.notification.annotation.NotificationUserContext;
+import com.notification.config.MetricsProperties;
+import com.notification.config.TemplateProperties;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationMessage;
+import com.notification.domain.notification.NotificationRecipient;
+import com.notification.metrics.NotificationMetrics;
+import com.notification.service.template.FreemarkerTemplateResolver;
+import com.notification.service.template.TemplateLookupCache;
+import freemarker.template.Configuration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationMessageResolverTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TemplateProperties templateProperties = new TemplateProperties();
+    private final TemplateLookupCache templateLookupCache = mock(TemplateLookupCache.class);
+    private final NotificationMessageResolver resolver = new NotificationMessageResolver(
+            templateLookupCache,
+            new FreemarkerTemplateResolver(new Configuration(Configuration.VERSION_2_3_34), templateProperties, meterRegistry),
+            templateProperties,
+            mock(NotificationUserContext.class),
+            new NotificationMetrics(meterRegistry, new MetricsProperties()));
+
+    @Test
+    void escapesSlotValuesLikeTheTemplateEscapesInterpolations() {
+        template("<#ftl output_format=\"HTML\"><p>Hi ${name}, ${recipientId}</p>");
+        NotificationRecipient recipient = recipient("<b>Tom & Jerry</b>", Map.of("name", "Ann"));
+
+        String shared = resolver.resolveMessages(List.of(recipient), NotificationChannel.EMAIL, (r, e) -> {
+                })
+                .get(recipient).getContent();
+
+        assertThat(shared).isEqualTo("<p>Hi Ann, &lt;b&gt;Tom &amp; Jerry&lt;/b&gt;</p>");
+        assertThat(resolver.resolveMessage(recipient, NotificationChannel.EMAIL).getContent()).isEqualTo(shared);
+    }
+
+    @Test
+    void onlyAddsTheSlotsATemplateReferences() {
+        template("<#list .data_model?keys?sort as key>${key} </#list>");
+        NotificationRecipient recipient = recipient("alice", Map.of("name", "Ann"));
+
+        assertThat(resolver.resolveMessage(recipient, NotificationChannel.EMAIL).getContent()).isEqualTo("name ");
+    }
+
+    @Test
+    void rendersSlotsTheSkeletonCannotFillInFull() {
+        template("Hi ${recipientId?upper_case}");
+        NotificationRecipient recipient = recipient("alice", Map.of());
+
+        assertThat(resolver.resolveMessages(List.of(recipient), NotificationChannel.EMAIL, (r, e) -> {
+                })
+                .get(recipient).getContent()).isEqualTo("Hi ALICE");
+    }
+
+    private void template(String content) {
+        when(templateLookupCache.find("welcome", NotificationChannel.EMAIL))
+                .thenReturn(Optional.of(new TemplateLookupCache.ResolvedTemplate(1L, "welcome", content, true)));
+    }
+
+    private static NotificationRecipient recipient(String recipientId, Map<String, Object> data) {
+        NotificationMessage message = new NotificationMessage();
+        message.setTemplateName("welcome");
+        message.setTemplateData(new HashMap<>(data));
+        NotificationRecipient recipient = new NotificationRecipient();
+        recipient.setRecipientId(recipientId);
+        recipient.setMessage(message);
+        recipient.getAddress().put(NotificationChannel.EMAIL, recipientId + "@example.com");
+        return recipient;
+    }
+}
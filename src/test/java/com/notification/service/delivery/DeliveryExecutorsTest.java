@@ -0,0 +1,93 @@
+package com.notification.service.delivery;
+
+import com.notification.config.DeliveryExecutorProperties;
+import com.notification.config.DeliveryExecutorProperties.RejectionPolicy;
+import com.notification.domain.notification.NotificationPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeliveryExecutorsTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DeliveryExecutors deliveryExecutors;
+
+    @BeforeEach
+    void setUp() {
+        DeliveryExecutorProperties properties = new DeliveryExecutorProperties();
+        properties.getDispatch().setCorePoolSize(1);
+        properties.getDispatch().setMaxPoolSize(1);
+        properties.getDispatch().setQueueCapacity(1);
+        properties.getDispatch().setRejectionPolicy(RejectionPolicy.CALLER_RUNS);
+        deliveryExecutors = new DeliveryExecutors(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        deliveryExecutors.destroy();
+    }
+
+    @Test
+    void runsTasksOnTheCallerWhenSaturated() {
+        saturate();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        deliveryExecutors.execute(NotificationPriority.NORMAL, () -> ranOn.set(Thread.currentThread())).join();
+
+        assertThat(ranOn).hasValue(Thread.currentThread());
+    }
+
+    @Test
+    void refusesTriedTasksWhenSaturatedWhateverThePolicy() {
+        saturate();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        assertThatThrownBy(() -> deliveryExecutors.tryExecute(NotificationPriority.NORMAL,
+                () -> ranOn.set(Thread.currentThread())))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(ranOn).hasValue(null);
+    }
+
+    @Test
+    void runsTriedTasksOnThePool() throws Exception {
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        deliveryExecutors.tryExecute(NotificationPriority.NORMAL, () -> ranOn.set(Thread.currentThread()))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(ranOn.get()).isNotNull().isNotEqualTo(Thread.currentThread());
+    }
+
+    /**
+     * Occupies the only thread and the only queue slot until the test ends.
+     */
+    private void saturate() {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> running = deliveryExecutors.execute(NotificationPriority.NORMAL, () -> {
+            started.countDown();
+            await(release);
+        });
+        await(started);
+        deliveryExecutors.execute(NotificationPriority.NORMAL, () -> await(release));
+        assertThat(running).isNotDone();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
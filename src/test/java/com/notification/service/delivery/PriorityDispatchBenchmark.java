@@ -0,0 +1,102 @@
+package com.notification.service.delivery;
+
+import com.notification.config.DeliveryExecutorProperties;
+import com.notification.domain.notification.NotificationPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Queue wait of URGENT dispatch tasks while the dispatch pool works off a flood of LOW tasks.
+ * URGENT p99 must stay close to what it is on an idle pool. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class PriorityDispatchBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int LOW_FLOOD = 4_000;
+    private static final int URGENT_TASKS = 200;
+    private static final long TASK_MILLIS = 1;
+
+    private DeliveryExecutors deliveryExecutors;
+
+    @BeforeEach
+    void setUp() {
+        DeliveryExecutorProperties properties = new DeliveryExecutorProperties();
+        properties.getDispatch().setCorePoolSize(THREADS);
+        properties.getDispatch().setMaxPoolSize(THREADS);
+        properties.getDispatch().setQueueCapacity(LOW_FLOOD + URGENT_TASKS);
+        deliveryExecutors = new DeliveryExecutors(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        deliveryExecutors.destroy();
+    }
+
+    @Test
+    void urgentP99StaysFlatUnderALowFlood() throws InterruptedException {
+        long idleP99 = p99(submitUrgent());
+
+        List<CompletableFuture<Void>> flood = new ArrayList<>();
+        List<Long> lowWaits = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < LOW_FLOOD; i++) {
+            flood.add(submit(NotificationPriority.LOW, lowWaits));
+        }
+        List<Long> floodedWaits = submitUrgent();
+        // The flood must outlast the URGENT tasks, or they were not measured under load
+        assertThat(flood).anyMatch(task -> !task.isDone());
+        long floodedP99 = p99(floodedWaits);
+        CompletableFuture.allOf(flood.toArray(new CompletableFuture[0])).join();
+        long lowP99 = p99(lowWaits);
+
+        System.out.printf("Queue wait p99: URGENT %.2f ms idle, URGENT %.2f ms under %,d LOW tasks, LOW %.2f ms%n",
+                idleP99 / 1e6, floodedP99 / 1e6, LOW_FLOOD, lowP99 / 1e6);
+
+        // A flooded URGENT task waits at most for a thread to finish its current task
+        assertThat(floodedP99).isLessThan(idleP99 + TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(floodedP99).isLessThan(lowP99 / 10);
+    }
+
+    /**
+     * Submits the URGENT tasks one by one, spaced out over the flood's run time if there is one.
+     *
+     * @return the queue wait of each URGENT task, in nanoseconds
+     */
+    private List<Long> submitUrgent() throws InterruptedException {
+        List<Long> waits = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < URGENT_TASKS; i++) {
+            submit(NotificationPriority.URGENT, waits).join();
+            TimeUnit.MILLISECONDS.sleep(2);
+        }
+        return waits;
+    }
+
+    private CompletableFuture<Void> submit(NotificationPriority priority, List<Long> waits) {
+        long submitted = System.nanoTime();
+        return deliveryExecutors.execute(priority, () -> {
+            waits.add(System.nanoTime() - submitted);
+            try {
+                TimeUnit.MILLISECONDS.sleep(TASK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static long p99(List<Long> waits) {
+        List<Long> sorted = new ArrayList<>(waits);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+    }
+}
@@ -0,0 +1,169 @@
+package com.notification.service.delivery;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.service.delivery.PriorityTaskQueue.PrioritizedTask;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriorityTaskQueueTest {
+
+    @Test
+    void urgentTasksOvertakeALowBacklog() {
+        PriorityTaskQueue queue = new PriorityTaskQueue(100, 5_000);
+        queue.offer(task("low-1", NotificationPriority.LOW, 30_000));
+        queue.offer(task("low-2", NotificationPriority.LOW, 30_000));
+        queue.offer(task("urgent", NotificationPriority.URGENT, 0));
+
+        assertThat(drain(queue)).containsExactly("urgent", "low-1", "low-2");
+    }
+
+    @Test
+    void aTaskPastItsAllowanceIsNoLongerOvertaken() throws InterruptedException {
+        PriorityTaskQueue queue = new PriorityTaskQueue(100, 5_000);
+        queue.offer(task("low", NotificationPriority.LOW, 1));
+        TimeUnit.MILLISECONDS.sleep(5);
+        queue.offer(task("normal", NotificationPriority.NORMAL, 1_000));
+
+        assertThat(drain(queue)).containsExactly("low", "normal");
+    }
+
+    @Test
+    void tasksOfOnePriorityKeepSubmissionOrder() {
+        PriorityTaskQueue queue = new PriorityTaskQueue(100, 5_000);
+        for (int i = 0; i < 5; i++) {
+            queue.offer(task("task-" + i, NotificationPriority.NORMAL, 1_000));
+        }
+
+        assertThat(drain(queue)).containsExactly("task-0", "task-1", "task-2", "task-3", "task-4");
+    }
+
+    @Test
+    void refusesTasksBeyondItsCapacity() {
+        PriorityTaskQueue queue = new PriorityTaskQueue(2, 5_000);
+
+        assertThat(queue.offer(task("a", NotificationPriority.NORMAL, 1_000))).isTrue();
+        assertThat(queue.offer(task("b", NotificationPriority.NORMAL, 1_000))).isTrue();
+        assertThat(queue.remainingCapacity()).isZero();
+        assertThat(queue.offer(task("c", NotificationPriority.URGENT, 0))).isFalse();
+    }
+
+    @Test
+    void neverExceedsItsCapacityUnderConcurrentOffers() throws InterruptedException {
+        int capacity = 100;
+        int threads = 8;
+        PriorityTaskQueue queue = new PriorityTaskQueue(capacity, 5_000);
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < capacity; i++) {
+                        if (queue.offer(task("task", NotificationPriority.NORMAL, 1_000))) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(accepted).hasValue(capacity);
+        assertThat(queue).hasSize(capacity);
+    }
+
+    @Test
+    void logsTheFailureOfAWrappedRunnable() {
+        Logger logger = (Logger) LoggerFactory.getLogger(PriorityTaskQueue.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        try {
+            PriorityTaskQueue queue = new PriorityTaskQueue(10, 5_000);
+            queue.offer(() -> {
+                throw new IllegalStateException("boom");
+            });
+            queue.poll().run();
+        } finally {
+            logger.detachAppender(appender);
+        }
+
+        assertThat(appender.list).singleElement().satisfies(event -> {
+            assertThat(event.getLevel()).isEqualTo(Level.ERROR);
+            assertThat(event.getThrowableProxy().getMessage()).isEqualTo("boom");
+        });
+    }
+
+    @Test
+    void wrapsPlainRunnablesWithTheDefaultWait() {
+        PriorityTaskQueue queue = new PriorityTaskQueue(10, 60_000);
+        queue.offer(() -> { });
+        queue.offer(task("urgent", NotificationPriority.URGENT, 0));
+
+        assertThat(queue.poll()).isInstanceOf(PrioritizedTask.class)
+                .satisfies(task -> assertThat(name(task)).isEqualTo("urgent"));
+        assertThat(queue.poll()).isInstanceOf(PrioritizedTask.class);
+    }
+
+    @Test
+    void mirrorsTheOutcomeToTheCompletion() {
+        PrioritizedTask<String> succeeding = task("done", NotificationPriority.NORMAL, 0);
+        succeeding.run();
+        assertThat(succeeding.getCompletion().join()).isEqualTo("done");
+
+        PrioritizedTask<String> failing = new PrioritizedTask<>(() -> {
+            throw new IllegalStateException("boom");
+        }, NotificationPriority.NORMAL, 0);
+        failing.run();
+        assertThatThrownBy(() -> failing.getCompletion().join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        PrioritizedTask<String> discarded = task("discarded", NotificationPriority.NORMAL, 0);
+        discarded.cancel(false);
+        assertThatThrownBy(() -> discarded.getCompletion().join()).isInstanceOf(CancellationException.class);
+    }
+
+    private static PrioritizedTask<String> task(String name, NotificationPriority priority, long maxWaitMs) {
+        return new PrioritizedTask<>(() -> name, priority, TimeUnit.MILLISECONDS.toNanos(maxWaitMs));
+    }
+
+    private static List<String> drain(PriorityTaskQueue queue) {
+        List<String> names = new ArrayList<>();
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            names.add(name(task));
+        }
+        return names;
+    }
+
+    private static String name(Runnable task) {
+        task.run();
+        return ((PrioritizedTask<?>) task).getCompletion().join().toString();
+    }
+}
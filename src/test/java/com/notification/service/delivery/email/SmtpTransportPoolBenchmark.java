@@ -0,0 +1,160 @@
+package com.notification.service.delivery.email;
+
+import com.notification.config.EmailProperties;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of a batch sent through {@link SmtpTransportPool} against a local SMTP stub,
+ * with pooling and with a connection per message. The stub delays its greeting to stand in
+ * for the TLS and AUTH round trips of a real server. Run with -Pbenchmark.
+ */
+@Tag("benchmark")
+class SmtpTransportPoolBenchmark {
+
+    private static final int MESSAGES = 500;
+    private static final long HANDSHAKE_MILLIS = 5;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final ExecutorService sessions = Executors.newCachedThreadPool();
+    private ServerSocket server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ServerSocket(0);
+        sessions.execute(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    sessions.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws IOException, InterruptedException {
+        server.close();
+        sessions.shutdownNow();
+        sessions.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void pooledConnectionsOutrunAConnectionPerMessage() throws MessagingException {
+        // Warm up the JIT and the mail classes before measuring
+        measure(true);
+
+        Result unpooled = measure(false);
+        Result pooled = measure(true);
+        System.out.printf("SMTP stub, %,d messages: %,.0f msg/s over %,d connections unpooled, "
+                        + "%,.0f msg/s over %,d connections pooled%n",
+                MESSAGES, unpooled.messagesPerSecond(), unpooled.connections(),
+                pooled.messagesPerSecond(), pooled.connections());
+
+        assertThat(pooled.connections()).isLessThan(unpooled.connections() / 10);
+        assertThat(pooled.messagesPerSecond()).isGreaterThan(unpooled.messagesPerSecond() * 2);
+    }
+
+    private Result measure(boolean pooling) throws MessagingException {
+        EmailProperties emailProperties = new EmailProperties();
+        emailProperties.setSmtpPoolEnabled(pooling);
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getLocalPort());
+        SmtpTransportPool pool = new SmtpTransportPool(mailSender, emailProperties);
+        List<MimeMessage> messages = messages(mailSender);
+
+        connections.set(0);
+        accepted.set(0);
+        long start = System.nanoTime();
+        assertThat(pool.send(messages)).isEmpty();
+        long elapsed = System.nanoTime() - start;
+        pool.destroy();
+
+        assertThat(accepted).hasValue(MESSAGES);
+        return new Result(MESSAGES * 1e9 / elapsed, connections.get());
+    }
+
+    private static List<MimeMessage> messages(JavaMailSenderImpl mailSender) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            message.setFrom(new InternetAddress("noreply@example.com"));
+            message.setRecipient(Message.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            message.setSubject("Invoice " + i);
+            message.setText("Your invoice is ready.");
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Answers one SMTP session: accepts every command and counts the messages it receives.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+            TimeUnit.MILLISECONDS.sleep(HANDSHAKE_MILLIS);
+            reply(out, "220 localhost ESMTP stub");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Message content is discarded
+                        }
+                        accepted.incrementAndGet();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // The client or the test closed the connection
+        }
+    }
+
+    private static void reply(Writer out, String reply) throws IOException {
+        out.write(reply + "\r\n");
+        out.flush();
+    }
+
+    private record Result(double messagesPerSecond, int connections) {
+    }
+}
@@ -0,0 +1,199 @@
+package com.notification.service.delivery.email;
+
+import com.notification.config.EmailProperties;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.NoSuchProviderException;
+import jakarta.mail.Provider;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.URLName;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpTransportPoolTest {
+
+    private final EmailProperties emailProperties = new EmailProperties();
+    private Session session;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setUp() throws NoSuchProviderException {
+        FakeTransport.reset();
+        session = Session.getInstance(new Properties());
+        session.setProvider(new Provider(Provider.Type.TRANSPORT, "smtp", FakeTransport.class.getName(), "test", "1"));
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setSession(session);
+        mailSender.setHost("localhost");
+        emailProperties.setSmtpPoolEnabled(true);
+        emailProperties.setSmtpPoolSize(2);
+        emailProperties.setSmtpPoolBorrowTimeoutMs(1_000);
+        pool = new SmtpTransportPool(mailSender, emailProperties);
+    }
+
+    @Test
+    void reusesOneConnectionAcrossMessagesAndBatches() throws MessagingException {
+        assertThat(pool.send(messages(3))).isEmpty();
+        assertThat(pool.send(messages(2))).isEmpty();
+
+        assertThat(FakeTransport.opened).hasSize(1);
+        assertThat(FakeTransport.opened.get(0).sent).hasSize(5);
+    }
+
+    @Test
+    void replacesAConnectionOnceItHasSentItsShare() throws MessagingException {
+        emailProperties.setSmtpMaxMessagesPerConnection(2);
+
+        assertThat(pool.send(messages(5))).isEmpty();
+
+        assertThat(FakeTransport.opened).extracting(transport -> transport.sent.size()).containsExactly(2, 2, 1);
+        assertThat(FakeTransport.opened).extracting(transport -> transport.closed).containsExactly(true, true, false);
+    }
+
+    @Test
+    void closesIdleConnectionsPastTheIdleTimeout() throws MessagingException {
+        emailProperties.setSmtpPoolIdleTimeoutSeconds(0);
+
+        pool.send(messages(1));
+        pool.send(messages(1));
+
+        assertThat(FakeTransport.opened).hasSize(2);
+        assertThat(FakeTransport.opened.get(0).closed).isTrue();
+    }
+
+    @Test
+    void discardsIdleConnectionsTheServerHasDropped() throws MessagingException {
+        pool.send(messages(1));
+        FakeTransport.opened.get(0).alive = false;
+
+        assertThat(pool.send(messages(1))).isEmpty();
+
+        assertThat(FakeTransport.opened).hasSize(2);
+        assertThat(FakeTransport.opened.get(0).closed).isTrue();
+        assertThat(FakeTransport.opened.get(1).sent).hasSize(1);
+    }
+
+    @Test
+    void reportsAMessageItsConnectionBrokeOnInsteadOfResendingIt() throws MessagingException {
+        List<MimeMessage> messages = messages(3);
+        FakeTransport.failure = message -> message == messages.get(1)
+                ? new MessagingException("Connection reset") : null;
+
+        Map<MimeMessage, Exception> failures = pool.send(messages);
+
+        assertThat(failures).containsOnlyKeys(messages.get(1));
+        assertThat(FakeTransport.attempts.get(messages.get(1))).isEqualTo(1);
+        assertThat(FakeTransport.opened).hasSize(2);
+        assertThat(FakeTransport.opened.get(0).closed).isTrue();
+        assertThat(FakeTransport.opened.get(1).sent).containsExactly(messages.get(2));
+    }
+
+    @Test
+    void keepsTheConnectionWhenOnlyRecipientsAreRejected() throws MessagingException {
+        List<MimeMessage> messages = messages(3);
+        FakeTransport.failure = message -> message == messages.get(0)
+                ? new SendFailedException("Mailbox unavailable") : null;
+
+        Map<MimeMessage, Exception> failures = pool.send(messages);
+
+        assertThat(failures).containsOnlyKeys(messages.get(0));
+        assertThat(FakeTransport.opened).hasSize(1);
+        assertThat(FakeTransport.opened.get(0).sent).containsExactly(messages.get(1), messages.get(2));
+    }
+
+    @Test
+    void failsTheRemainingMessagesWhenNoConnectionCanBeOpened() throws MessagingException {
+        FakeTransport.refuseConnections = true;
+        List<MimeMessage> messages = messages(2);
+
+        Map<MimeMessage, Exception> failures = pool.send(messages);
+
+        assertThat(failures).containsOnlyKeys(messages);
+        assertThat(FakeTransport.attempts).isEmpty();
+    }
+
+    private List<MimeMessage> messages(int count) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = new MimeMessage(session);
+            message.setFrom(new InternetAddress("noreply@example.com"));
+            message.setRecipient(Message.RecipientType.TO, new InternetAddress("user" + i + "@example.com"));
+            message.setSubject("Message " + i);
+            message.setText("Body " + i);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    /**
+     * Transport the mail session instantiates for "smtp"; records what each connection did.
+     */
+    public static class FakeTransport extends Transport {
+
+        static final List<FakeTransport> opened = new ArrayList<>();
+        static final Map<Message, Integer> attempts = new ConcurrentHashMap<>();
+        static volatile Function<Message, MessagingException> failure = message -> null;
+        static volatile boolean refuseConnections;
+
+        final List<Message> sent = new ArrayList<>();
+        volatile boolean alive = true;
+        volatile boolean closed;
+
+        public FakeTransport(Session session, URLName urlName) {
+            super(session, urlName);
+        }
+
+        static void reset() {
+            opened.clear();
+            attempts.clear();
+            failure = message -> null;
+            refuseConnections = false;
+        }
+
+        @Override
+        protected boolean protocolConnect(String host, int port, String user, String password) throws MessagingException {
+            if (refuseConnections) {
+                throw new MessagingException("Connection refused");
+            }
+            synchronized (opened) {
+                opened.add(this);
+            }
+            return true;
+        }
+
+        @Override
+        public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+            attempts.merge(message, 1, Integer::sum);
+            MessagingException error = failure.apply(message);
+            if (error != null) {
+                throw error;
+            }
+            sent.add(message);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return alive && super.isConnected();
+        }
+
+        @Override
+        public synchronized void close() throws MessagingException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.notification.service.delivery.sms;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmsSegmenterTest {
+
+    @Test
+    void detectsTheEncoding() {
+        assertThat(SmsSegmenter.detect("Your code is 1234")).isEqualTo(SmsEncoding.GSM7);
+        assertThat(SmsSegmenter.detect("Price: 5€ [incl. VAT]")).isEqualTo(SmsEncoding.GSM7);
+        assertThat(SmsSegmenter.detect("Ваш код 1234")).isEqualTo(SmsEncoding.UCS2);
+        assertThat(SmsSegmenter.detect("Done 👍")).isEqualTo(SmsEncoding.UCS2);
+    }
+
+    @Test
+    void countsExtensionCharactersAsTwoSeptets() {
+        assertThat(SmsSegmenter.length("a€{", SmsEncoding.GSM7)).isEqualTo(5);
+        assertThat(SmsSegmenter.length("a👍", SmsEncoding.UCS2)).isEqualTo(3);
+    }
+
+    @Test
+    void keepsContentThatFitsInOneSegmentWhole() {
+        String content = "a".repeat(160);
+
+        assertThat(SmsSegmenter.split(content, SmsEncoding.GSM7)).containsExactly(content);
+    }
+
+    @Test
+    void splitsLongContentIntoConcatenatedSegments() {
+        List<String> parts = SmsSegmenter.split("a".repeat(161), SmsEncoding.GSM7);
+
+        assertThat(parts).extracting(String::length).containsExactly(153, 8);
+    }
+
+    @Test
+    void neverCutsAnEscapeSequence() {
+        String content = "a".repeat(152) + "€" + "b".repeat(10);
+
+        List<String> parts = SmsSegmenter.split(content, SmsEncoding.GSM7);
+
+        assertThat(parts).containsExactly("a".repeat(152), "€" + "b".repeat(10));
+    }
+
+    @Test
+    void neverCutsASurrogatePair() {
+        String content = "ж".repeat(66) + "👍" + "ж".repeat(10);
+
+        List<String> parts = SmsSegmenter.split(content, SmsEncoding.UCS2);
+
+        assertThat(parts).containsExactly("ж".repeat(66), "👍" + "ж".repeat(10));
+        assertThat(String.join("", parts)).isEqualTo(content);
+    }
+
+    @Test
+    void truncatesToWholeCharacters() {
+        assertThat(SmsSegmenter.truncate("ab€c", SmsEncoding.GSM7, 3)).isEqualTo("ab");
+        assertThat(SmsSegmenter.truncate("ab€c", SmsEncoding.GSM7, 4)).isEqualTo("ab€");
+        assertThat(SmsSegmenter.truncate("a👍b", SmsEncoding.UCS2, 2)).isEqualTo("a");
+    }
+}
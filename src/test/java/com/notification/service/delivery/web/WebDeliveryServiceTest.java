@@ -0,0 +1,203 @@
+package com.notification.service.delivery.web;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.notification.config.WebSocketProperties;
+import com.notification.domain.notification.Notification;
+import com.notification.domain.notification.NotificationChannel;
+import com.notification.domain.notification.NotificationMessage;
+import com.notification.domain.notification.NotificationPriority;
+import com.notification.domain.notification.NotificationRecipient;
+import com.notification.domain.notification.NotificationStatus;
+import com.notification.domain.notification.NotificationType;
+import com.notification.dto.NotificationResponse;
+import com.notification.service.NotificationMessageResolver;
+import com.notification.service.delivery.DeliveryResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebDeliveryServiceTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final List<Message<?>> sent = new ArrayList<>();
+    private final Map<NotificationRecipient, String> contents = new LinkedHashMap<>();
+    private final NotificationMessageResolver resolver = mock(NotificationMessageResolver.class);
+    private final Notification notification = new Notification();
+    private final WebSocketProperties webSocketProperties = new WebSocketProperties();
+    private SimpMessagingTemplate messagingTemplate;
+    private WebDeliveryService deliveryService;
+
+    @BeforeEach
+    void setUp() {
+        MessageChannel channel = (message, timeout) -> sent.add(message);
+        messagingTemplate = new SimpMessagingTemplate(channel);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        messagingTemplate.setMessageConverter(converter);
+        deliveryService = new WebDeliveryService(messagingTemplate, webSocketProperties, resolver);
+
+        when(resolver.resolveMessages(any(), eq(NotificationChannel.WEB), any())).thenAnswer(invocation -> {
+            Map<NotificationRecipient, NotificationMessageResolver.NotificationContent> resolved = new LinkedHashMap<>();
+            for (NotificationRecipient recipient : invocation.<Collection<NotificationRecipient>>getArgument(0)) {
+                resolved.put(recipient, resolver.new NotificationContent(contents.get(recipient), false));
+            }
+            return resolved;
+        });
+
+        notification.setNotificationId("n-1");
+        notification.setType(NotificationType.INFO);
+        notification.setPriority(NotificationPriority.HIGH);
+        notification.setStatus(NotificationStatus.PROCESSING);
+        notification.setSender("billing");
+    }
+
+    @Test
+    void serializesEachRecipientIntoTheSharedPayload() throws IOException {
+        List<NotificationRecipient> recipients = List.of(
+                recipient(1L, "alice", "alice", "Invoice ready"),
+                recipient(2L, "bob \"the builder\" \\ o'neil", "bob", "Invoice ready"),
+                recipient(3L, "zoë\tχ\u0001", "zoe", "Invoice ready"));
+
+        DeliveryResult result = deliveryService.deliver(notification, recipients);
+
+        assertThat(result.getDelivered()).containsExactlyElementsOf(recipients);
+        assertThat(sent).hasSize(3);
+        for (int i = 0; i < recipients.size(); i++) {
+            NotificationRecipient recipient = recipients.get(i);
+            assertThat(destination(sent.get(i))).isEqualTo("/user/" + recipient.getAddress().get(NotificationChannel.WEB)
+                    + "/notifications");
+            assertThat(json(sent.get(i))).isEqualTo(expected(recipient, recipient.getId(), recipient.getRecipientId()));
+        }
+    }
+
+    @Test
+    void serializesRecipientsWithTheConvertersObjectMapperSettings() throws IOException {
+        objectMapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        List<NotificationRecipient> recipients = List.of(
+                recipient(Long.MIN_VALUE, "line\nbreak\u2028", "alice", "Balance: -9223372036854775808"),
+                recipient(null, "\"-9223372036854775808\"", "bob", "Balance: -9223372036854775808"));
+
+        deliveryService.deliver(notification, recipients);
+
+        assertThat(sent).hasSize(2);
+        assertThat(json(sent.get(0))).isEqualTo(expected(recipients.get(0), Long.MIN_VALUE, "line\nbreak\u2028"));
+        assertThat(json(sent.get(1))).isEqualTo(expected(recipients.get(1), null, "\"-9223372036854775808\""));
+        assertThat(json(sent.get(1)).has("id")).isFalse();
+        assertThat(json(sent.get(0)).has("failure_reason")).isFalse();
+    }
+
+    @Test
+    void convertsEachRecipientOnItsOwnWithoutAJacksonConverter() {
+        messagingTemplate.setMessageConverter(new SimpleMessageConverter());
+        List<NotificationRecipient> recipients = List.of(
+                recipient(1L, "alice", "alice", "Hello"),
+                recipient(2L, "bob", "bob", "Hello"));
+
+        deliveryService.deliver(notification, recipients);
+
+        assertThat(sent).extracting(message -> ((NotificationResponse) message.getPayload()).getRecipient())
+                .containsExactly("alice", "bob");
+        assertThat(sent).extracting(message -> ((NotificationResponse) message.getPayload()).getId())
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void broadcastsOnceToATopicWhoseRecipientsShareAPayload() throws IOException {
+        webSocketProperties.setTopicBroadcastEnabled(true);
+        List<NotificationRecipient> recipients = List.of(
+                recipient(1L, "alice", "/topic/team-42", "Deploy finished"),
+                recipient(2L, "bob", "/topic/team-42", "Deploy finished"));
+
+        DeliveryResult result = deliveryService.deliver(notification, recipients);
+
+        assertThat(result.getDelivered()).hasSize(2);
+        assertThat(sent).hasSize(1);
+        assertThat(destination(sent.get(0))).isEqualTo("/topic/team-42");
+        assertThat(json(sent.get(0))).isEqualTo(expected(recipients.get(0), null, "/topic/team-42"));
+        assertThat(json(sent.get(0)).get("notificationId").asText()).isEqualTo("n-1");
+    }
+
+    @Test
+    void broadcastsEachDistinctPayloadToASharedTopic() throws IOException {
+        webSocketProperties.setTopicBroadcastEnabled(true);
+        NotificationRecipient english = recipient(1L, "alice", "/topic/team-42", "Deploy finished");
+        NotificationRecipient german = recipient(2L, "jonas", "/topic/team-42", "Deployment abgeschlossen");
+
+        deliveryService.deliver(notification, List.of(english, german));
+
+        assertThat(sent).hasSize(2);
+        assertThat(json(sent.get(0))).isEqualTo(expected(english, null, "/topic/team-42"));
+        assertThat(json(sent.get(1))).isEqualTo(expected(german, null, "/topic/team-42"));
+    }
+
+    @Test
+    void sendsTopicAddressesToTheUserDestinationUnlessBroadcastsAreEnabled() throws IOException {
+        List<NotificationRecipient> recipients = List.of(
+                recipient(1L, "alice", "/topic/team-42", "Deploy finished"),
+                recipient(2L, "bob", "/topic/team-42", "Deploy finished"));
+
+        deliveryService.deliver(notification, recipients);
+
+        assertThat(sent).hasSize(2);
+        for (int i = 0; i < recipients.size(); i++) {
+            NotificationRecipient recipient = recipients.get(i);
+            assertThat(destination(sent.get(i))).isEqualTo("/user//topic/team-42/notifications");
+            assertThat(json(sent.get(i))).isEqualTo(expected(recipient, recipient.getId(), recipient.getRecipientId()));
+        }
+    }
+
+    private NotificationRecipient recipient(Long id, String recipientId, String address, String content) {
+        NotificationMessage message = new NotificationMessage();
+        message.setSubject("Subject for " + content);
+        NotificationRecipient recipient = new NotificationRecipient();
+        recipient.setId(id);
+        recipient.setRecipientId(recipientId);
+        recipient.setNotification(notification);
+        recipient.setMessage(message);
+        recipient.getAddress().put(NotificationChannel.WEB, address);
+        contents.put(recipient, content);
+        return recipient;
+    }
+
+    /**
+     * @return the payload convertAndSend would have produced for the recipient
+     */
+    private JsonNode expected(NotificationRecipient recipient, Long id, String name) throws IOException {
+        NotificationResponse response = new NotificationResponse(recipient,
+                resolver.new NotificationContent(contents.get(recipient), false), NotificationChannel.WEB);
+        response.setId(id);
+        response.setRecipient(name);
+        return objectMapper.readTree((byte[]) messagingTemplate.getMessageConverter().toMessage(response, null).getPayload());
+    }
+
+    private JsonNode json(Message<?> message) throws IOException {
+        return objectMapper.readTree((byte[]) message.getPayload());
+    }
+
+    private static String destination(Message<?> message) {
+        return SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+    }
+}
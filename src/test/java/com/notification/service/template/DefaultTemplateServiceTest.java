@@ -0,0 +1,63 @@
+package com.notification.service.template;
+
+import com.notification.domain.template.Template;
+import com.notification.repository.TemplateRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DefaultTemplateServiceTest {
+
+    private final TemplateRepository templateRepository = mock(TemplateRepository.class);
+    private final TemplateResolver resolver = mock(TemplateResolver.class);
+    private final TemplateLookupCache templateLookupCache = mock(TemplateLookupCache.class);
+    private final DefaultTemplateService templateService =
+            new DefaultTemplateService(templateRepository, List.of(resolver), templateLookupCache);
+
+    @Test
+    void evictsThePreviousAndTheNewVersionOfADetachedTemplate() {
+        Template stored = template("welcome", "Hello ${name}");
+        Template changed = template("greeting", "Hi ${name}");
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(templateRepository.save(any())).then(returnsFirstArg());
+
+        templateService.updateTemplate(changed);
+
+        verify(resolver).evict("Hello ${name}");
+        verify(resolver).evict("Hi ${name}");
+        verify(templateLookupCache).invalidate("welcome");
+        verify(templateLookupCache).invalidate("greeting");
+        verify(resolver, never()).evictAll();
+    }
+
+    @Test
+    void evictsEverythingWhenTheManagedInstanceWasChangedInPlace() {
+        Template managed = template("welcome", "Hello ${name}");
+        when(templateRepository.findById(1L)).thenReturn(Optional.of(managed));
+        when(templateRepository.save(any())).then(returnsFirstArg());
+        managed.setName("greeting");
+        managed.setContent("Hi ${name}");
+
+        templateService.updateTemplate(managed);
+
+        verify(resolver).evictAll();
+        verify(templateLookupCache).invalidateAll();
+    }
+
+    private static Template template(String name, String content) {
+        Template template = new Template();
+        template.setId(1L);
+        template.setCode("welcome");
+        template.setName(name);
+        template.setContent(content);
+        return template;
+    }
+}
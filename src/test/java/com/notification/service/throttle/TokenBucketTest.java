@@ -0,0 +1,90 @@
+package com.notification.service.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void grantsTheBurstWithoutWaiting() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.reserve(1, 0)).isZero();
+        }
+        assertThat(bucket.reserve(1, 0)).isEqualTo(-1);
+    }
+
+    @Test
+    void reservesFuturePermitsAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertThat(bucket.reserve(1, 0)).isZero();
+
+        // Each further permit is due 100ms after the one before it
+        long first = bucket.reserve(1, SECOND);
+        long second = bucket.reserve(1, SECOND);
+
+        assertThat(first).isBetween(SECOND / 10 - TimeUnit.MILLISECONDS.toNanos(20), SECOND / 10);
+        assertThat(second - first).isBetween(SECOND / 10 - TimeUnit.MILLISECONDS.toNanos(20), SECOND / 10);
+    }
+
+    @Test
+    void reservesNothingWhenTheWaitIsTooLong() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        bucket.reserve(1, 0);
+
+        assertThat(bucket.reserve(5, SECOND / 10)).isEqualTo(-1);
+        // The refused reservation took nothing, so the next permit is still only 100ms away
+        assertThat(bucket.reserve(1, SECOND / 10)).isPositive();
+    }
+
+    @Test
+    void refundedPermitsCanBeReservedAgain() {
+        TokenBucket bucket = new TokenBucket(10, 3);
+        assertThat(bucket.reserve(3, 0)).isZero();
+        assertThat(bucket.reserve(1, 0)).isEqualTo(-1);
+
+        bucket.refund(2);
+
+        assertThat(bucket.reserve(2, 0)).isZero();
+        assertThat(bucket.reserve(1, 0)).isEqualTo(-1);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 100);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 100; i++) {
+                    if (bucket.reserve(1, 0) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // One permit per second refills, so a fast test can see at most one beyond the burst
+        assertThat(granted.get()).isBetween(100, 101);
+    }
+}